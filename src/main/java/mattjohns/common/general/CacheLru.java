@@ -0,0 +1,112 @@
+package mattjohns.common.general;
+
+import java.util.Arrays;
+
+/**
+ * Small least recently used cache with primitive long keys.
+ *
+ * Lookups are a linear scan so this is only for a handful of entries, such as
+ * the last few chunks. The value pushed out by put() is handed back so the
+ * caller can reuse it instead of allocating a new one.
+ *
+ * Not thread safe.
+ */
+public class CacheLru<TValue> {
+	protected long[] keyList;
+	protected Object[] valueList;
+
+	// higher is more recent, 0 is an empty slot
+	protected long[] useList;
+	protected long useCounter;
+
+	// last slot found, consecutive lookups are usually for the same key
+	protected int indexLast;
+
+	protected CacheLru(int capacity) {
+		assert capacity > 0;
+
+		keyList = new long[capacity];
+		valueList = new Object[capacity];
+		useList = new long[capacity];
+	}
+
+	public static <TValue> CacheLru<TValue> of(int capacity) {
+		return new CacheLru<>(capacity);
+	}
+
+	// null if not cached
+	public TValue get(long key) {
+		if (useList[indexLast] != 0 && keyList[indexLast] == key) {
+			return valueAt(indexLast);
+		}
+
+		for (int i = 0; i < keyList.length; i++) {
+			if (useList[i] != 0 && keyList[i] == key) {
+				useList[i] = ++useCounter;
+				indexLast = i;
+
+				return valueAt(i);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Adds or replaces the value for key.
+	 *
+	 * @return The value that was pushed out to make room, or null if there was
+	 * a free slot or key was already cached.
+	 */
+	public TValue put(long key, TValue value) {
+		assert value != null;
+
+		int index = -1;
+		int indexOldest = 0;
+
+		for (int i = 0; i < keyList.length; i++) {
+			if (useList[i] != 0 && keyList[i] == key) {
+				index = i;
+				break;
+			}
+
+			if (useList[i] < useList[indexOldest]) {
+				indexOldest = i;
+			}
+		}
+
+		TValue result = null;
+
+		if (index == -1) {
+			index = indexOldest;
+
+			if (useList[index] != 0) {
+				result = valueAt(index);
+			}
+		}
+
+		keyList[index] = key;
+		valueList[index] = value;
+		useList[index] = ++useCounter;
+		indexLast = index;
+
+		return result;
+	}
+
+	public int capacity() {
+		return keyList.length;
+	}
+
+	public void clear() {
+		Arrays.fill(valueList, null);
+		Arrays.fill(useList, 0L);
+		useCounter = 0;
+		indexLast = 0;
+	}
+
+	protected TValue valueAt(int index) {
+		@SuppressWarnings("unchecked")
+		final TValue result = (TValue)valueList[index];
+		return result;
+	}
+}
@@ -0,0 +1,62 @@
+package mattjohns.common.general;
+
+import mattjohns.common.list.LongHashSet;
+
+/**
+ * Thread safe CacheLru split into stripes, each with its own lock.
+ *
+ * Recently used is per stripe so it's only roughly least recently used
+ * overall. Meant for values that can be worked out again from the key at any
+ * time, so losing one to another thread is only a bit of wasted work.
+ */
+public class CacheLruConcurrent<TValue> {
+	protected static final int StripeListSize = 16;
+
+	protected final CacheLru<TValue>[] stripeList;
+
+	protected CacheLruConcurrent(int capacity) {
+		int stripeCapacity = Math.max((capacity + StripeListSize - 1) / StripeListSize, 1);
+
+		@SuppressWarnings("unchecked")
+		final CacheLru<TValue>[] list = (CacheLru<TValue>[])new CacheLru<?>[StripeListSize];
+		stripeList = list;
+
+		for (int i = 0; i < StripeListSize; i++) {
+			stripeList[i] = CacheLru.of(stripeCapacity);
+		}
+	}
+
+	// capacity is spread over the stripes
+	public static <TValue> CacheLruConcurrent<TValue> of(int capacity) {
+		return new CacheLruConcurrent<>(capacity);
+	}
+
+	// null if not cached
+	public TValue get(long key) {
+		CacheLru<TValue> stripe = stripeGet(key);
+
+		synchronized (stripe) {
+			return stripe.get(key);
+		}
+	}
+
+	public void put(long key, TValue value) {
+		CacheLru<TValue> stripe = stripeGet(key);
+
+		synchronized (stripe) {
+			stripe.put(key, value);
+		}
+	}
+
+	public void clear() {
+		for (CacheLru<TValue> stripe : stripeList) {
+			synchronized (stripe) {
+				stripe.clear();
+			}
+		}
+	}
+
+	protected CacheLru<TValue> stripeGet(long key) {
+		return stripeList[(int)LongHashSet.mix(key) & (StripeListSize - 1)];
+	}
+}
@@ -0,0 +1,105 @@
+package mattjohns.common.general;
+
+import java.util.Arrays;
+
+/**
+ * Collects individual durations so percentiles can be worked out afterwards.
+ *
+ * Durations are in nanoseconds. Storage grows as needed so this is for
+ * benchmarks rather than always-on monitoring.
+ */
+public class TimingList {
+	protected long[] durationList;
+	protected int size;
+	protected long total;
+
+	// sorted copy, thrown away whenever a new duration is added
+	protected long[] durationSortCache;
+
+	protected TimingList(int capacity) {
+		durationList = new long[Math.max(capacity, 16)];
+	}
+
+	public static TimingList of() {
+		return new TimingList(1024);
+	}
+
+	public static TimingList of(int capacity) {
+		return new TimingList(capacity);
+	}
+
+	public void add(long durationNanosecond) {
+		if (size == durationList.length) {
+			durationList = Arrays.copyOf(durationList, size * 2);
+		}
+
+		durationList[size] = durationNanosecond;
+		size++;
+
+		total += durationNanosecond;
+
+		durationSortCache = null;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public long total() {
+		return total;
+	}
+
+	/**
+	 * Nearest rank percentile.
+	 *
+	 * @param percent
+	 * Between 0 and 100 inclusive.
+	 *
+	 * @return Zero if there are no durations.
+	 */
+	public long percentile(double percent) {
+		if (size == 0) {
+			return 0;
+		}
+
+		if (percent < 0d) {
+			percent = 0d;
+		}
+
+		if (percent > 100d) {
+			percent = 100d;
+		}
+
+		long[] sort = durationSortGet();
+
+		int rank = (int)Math.ceil(percent / 100d * size);
+		if (rank < 1) {
+			rank = 1;
+		}
+
+		return sort[rank - 1];
+	}
+
+	public long maximum() {
+		return percentile(100d);
+	}
+
+	public void clear() {
+		size = 0;
+		total = 0;
+		durationSortCache = null;
+	}
+
+	protected long[] durationSortGet() {
+		if (durationSortCache == null) {
+			durationSortCache = Arrays.copyOf(durationList, size);
+			Arrays.sort(durationSortCache);
+		}
+
+		return durationSortCache;
+	}
+}
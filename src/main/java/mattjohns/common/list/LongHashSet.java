@@ -0,0 +1,230 @@
+package mattjohns.common.list;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Open addressing set of longs stored straight in a long array.
+ *
+ * Linear probing with backward shift removal so there are no tombstones.
+ * The table grows by a quarter at 75% load rather than doubling, which keeps
+ * it between about 11 and 13 bytes per value. Only growing allocates.
+ *
+ * Not thread safe, see LongHashSetConcurrent.
+ */
+public class LongHashSet implements LongSet {
+	protected static final int CapacityMinimum = 16;
+	protected static final double LoadMaximum = 0.75d;
+	protected static final double GrowFactor = 1.25d;
+
+	// 0 marks an empty slot, a value of 0 is tracked separately
+	protected long[] slotList;
+
+	// values in the slot list, not counting 0
+	protected int slotListUsedSize;
+
+	protected boolean isZeroPresent;
+
+	protected int growThreshold;
+
+	protected LongHashSet(int capacity) {
+		slotListCreate(Math.max(capacity, CapacityMinimum));
+	}
+
+	public static LongHashSet of() {
+		return new LongHashSet(CapacityMinimum);
+	}
+
+	// sized so the given number of values fit without growing
+	public static LongHashSet of(int expectedSize) {
+		return new LongHashSet((int)Math.ceil(expectedSize / LoadMaximum) + 1);
+	}
+
+	@Override
+	public boolean contains(long value) {
+		if (value == 0) {
+			return isZeroPresent;
+		}
+
+		int index = slotIndex(value);
+
+		while (true) {
+			long slot = slotList[index];
+
+			if (slot == value) {
+				return true;
+			}
+
+			if (slot == 0) {
+				return false;
+			}
+
+			index = slotNext(index);
+		}
+	}
+
+	@Override
+	public boolean add(long value) {
+		if (value == 0) {
+			boolean result = !isZeroPresent;
+			isZeroPresent = true;
+			return result;
+		}
+
+		int index = slotIndex(value);
+
+		while (true) {
+			long slot = slotList[index];
+
+			if (slot == value) {
+				return false;
+			}
+
+			if (slot == 0) {
+				break;
+			}
+
+			index = slotNext(index);
+		}
+
+		slotList[index] = value;
+		slotListUsedSize++;
+
+		if (slotListUsedSize > growThreshold) {
+			grow();
+		}
+
+		return true;
+	}
+
+	@Override
+	public boolean remove(long value) {
+		if (value == 0) {
+			boolean result = isZeroPresent;
+			isZeroPresent = false;
+			return result;
+		}
+
+		int index = slotIndex(value);
+
+		while (true) {
+			long slot = slotList[index];
+
+			if (slot == value) {
+				break;
+			}
+
+			if (slot == 0) {
+				return false;
+			}
+
+			index = slotNext(index);
+		}
+
+		// shift later values in the same run back so lookups still find them
+		int hole = index;
+		int next = slotNext(hole);
+
+		while (slotList[next] != 0) {
+			int home = slotIndex(slotList[next]);
+
+			if (!isCyclicBetween(hole, home, next)) {
+				slotList[hole] = slotList[next];
+				hole = next;
+			}
+
+			next = slotNext(next);
+		}
+
+		slotList[hole] = 0;
+		slotListUsedSize--;
+
+		return true;
+	}
+
+	// also gives back the memory
+	@Override
+	public void clear() {
+		slotListCreate(CapacityMinimum);
+		isZeroPresent = false;
+	}
+
+	@Override
+	public int size() {
+		return slotListUsedSize + (isZeroPresent ? 1 : 0);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public void forEach(LongConsumer action) {
+		if (isZeroPresent) {
+			action.accept(0);
+		}
+
+		for (long slot : slotList) {
+			if (slot != 0) {
+				action.accept(slot);
+			}
+		}
+	}
+
+	protected void slotListCreate(int capacity) {
+		slotList = new long[capacity];
+		slotListUsedSize = 0;
+		growThreshold = (int)(capacity * LoadMaximum);
+	}
+
+	protected void grow() {
+		long[] slotListOld = slotList;
+
+		slotListCreate((int)Math.ceil(slotListOld.length * GrowFactor));
+
+		for (long slot : slotListOld) {
+			if (slot != 0) {
+				int index = slotIndex(slot);
+
+				while (slotList[index] != 0) {
+					index = slotNext(index);
+				}
+
+				slotList[index] = slot;
+				slotListUsedSize++;
+			}
+		}
+	}
+
+	// Table size isn't a power of 2 so map the top bits of the hash onto it
+	// with a multiply rather than a modulo.
+	protected int slotIndex(long value) {
+		return (int)(((mix(value) >>> 32) * slotList.length) >>> 32);
+	}
+
+	protected int slotNext(int index) {
+		index++;
+		return index == slotList.length ? 0 : index;
+	}
+
+	// whether home is in the range (start, end] going around the end of the
+	// table
+	protected static boolean isCyclicBetween(int start, int home, int end) {
+		if (start <= end) {
+			return start < home && home <= end;
+		} else {
+			return start < home || home <= end;
+		}
+	}
+
+	// murmur3 finalizer, packed positions have most of their entropy in the
+	// low bits of each half
+	public static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+		return value;
+	}
+}
@@ -0,0 +1,97 @@
+package mattjohns.common.list;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Thread safe LongHashSet split into stripes, each with its own lock, so
+ * threads working on different values rarely wait for each other.
+ *
+ * size() and forEach() lock one stripe at a time so they don't give an exact
+ * picture while other threads are changing the set.
+ */
+public class LongHashSetConcurrent implements LongSet {
+	protected static final int StripeListSize = 16;
+
+	protected final LongHashSet[] stripeList;
+
+	protected LongHashSetConcurrent() {
+		stripeList = new LongHashSet[StripeListSize];
+
+		for (int i = 0; i < StripeListSize; i++) {
+			stripeList[i] = LongHashSet.of();
+		}
+	}
+
+	public static LongHashSetConcurrent of() {
+		return new LongHashSetConcurrent();
+	}
+
+	@Override
+	public boolean contains(long value) {
+		LongHashSet stripe = stripeGet(value);
+
+		synchronized (stripe) {
+			return stripe.contains(value);
+		}
+	}
+
+	@Override
+	public boolean add(long value) {
+		LongHashSet stripe = stripeGet(value);
+
+		synchronized (stripe) {
+			return stripe.add(value);
+		}
+	}
+
+	@Override
+	public boolean remove(long value) {
+		LongHashSet stripe = stripeGet(value);
+
+		synchronized (stripe) {
+			return stripe.remove(value);
+		}
+	}
+
+	@Override
+	public void clear() {
+		for (LongHashSet stripe : stripeList) {
+			synchronized (stripe) {
+				stripe.clear();
+			}
+		}
+	}
+
+	@Override
+	public int size() {
+		int result = 0;
+
+		for (LongHashSet stripe : stripeList) {
+			synchronized (stripe) {
+				result += stripe.size();
+			}
+		}
+
+		return result;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	// the action runs while a stripe is locked so keep it short
+	@Override
+	public void forEach(LongConsumer action) {
+		for (LongHashSet stripe : stripeList) {
+			synchronized (stripe) {
+				stripe.forEach(action);
+			}
+		}
+	}
+
+	// low bits of the hash, the stripe itself indexes with the high bits
+	protected LongHashSet stripeGet(long value) {
+		return stripeList[(int)LongHashSet.mix(value) & (StripeListSize - 1)];
+	}
+}
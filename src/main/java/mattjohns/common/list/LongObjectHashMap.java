@@ -0,0 +1,115 @@
+package mattjohns.common.list;
+
+import java.util.function.Consumer;
+
+/**
+ * Map from primitive long keys to objects, no boxing on lookup.
+ *
+ * Values can't be null, an empty slot is a null value. There's no single
+ * remove, entries stay until clear(). Meant for a modest number of long
+ * lived entries such as regions.
+ *
+ * Not thread safe.
+ */
+public class LongObjectHashMap<TValue> {
+	protected static final int CapacityMinimum = 16;
+
+	protected long[] keyList;
+	protected Object[] valueList;
+	protected int size;
+
+	protected LongObjectHashMap() {
+		tableCreate(CapacityMinimum);
+	}
+
+	public static <TValue> LongObjectHashMap<TValue> of() {
+		return new LongObjectHashMap<>();
+	}
+
+	// null if not found
+	public TValue get(long key) {
+		int mask = keyList.length - 1;
+		int index = (int)LongHashSet.mix(key) & mask;
+
+		while (valueList[index] != null) {
+			if (keyList[index] == key) {
+				@SuppressWarnings("unchecked")
+				final TValue result = (TValue)valueList[index];
+				return result;
+			}
+
+			index = (index + 1) & mask;
+		}
+
+		return null;
+	}
+
+	// replaces any existing value
+	public void put(long key, TValue value) {
+		assert value != null;
+
+		int mask = keyList.length - 1;
+		int index = (int)LongHashSet.mix(key) & mask;
+
+		while (valueList[index] != null) {
+			if (keyList[index] == key) {
+				valueList[index] = value;
+				return;
+			}
+
+			index = (index + 1) & mask;
+		}
+
+		keyList[index] = key;
+		valueList[index] = value;
+		size++;
+
+		// half full at most so probing stays short
+		if (size * 2 > keyList.length) {
+			grow();
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		tableCreate(CapacityMinimum);
+	}
+
+	public void forEachValue(Consumer<TValue> action) {
+		for (Object value : valueList) {
+			if (value != null) {
+				@SuppressWarnings("unchecked")
+				final TValue valueCast = (TValue)value;
+				action.accept(valueCast);
+			}
+		}
+	}
+
+	protected void tableCreate(int capacity) {
+		keyList = new long[capacity];
+		valueList = new Object[capacity];
+		size = 0;
+	}
+
+	protected void grow() {
+		long[] keyListOld = keyList;
+		Object[] valueListOld = valueList;
+
+		tableCreate(keyListOld.length * 2);
+
+		for (int i = 0; i < keyListOld.length; i++) {
+			if (valueListOld[i] != null) {
+				@SuppressWarnings("unchecked")
+				final TValue value = (TValue)valueListOld[i];
+				put(keyListOld[i], value);
+			}
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package mattjohns.common.list;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Set of primitive longs, no boxing.
+ */
+public interface LongSet {
+	boolean contains(long value);
+
+	// returns false if it was already there
+	boolean add(long value);
+
+	// returns false if it wasn't there
+	boolean remove(long value);
+
+	void clear();
+
+	int size();
+
+	boolean isEmpty();
+
+	void forEach(LongConsumer action);
+}
@@ -161,6 +161,11 @@ public class General {
 	}
 
 	public static int randomGetIntegerExclusive(int maximumSize) {
+		return randomGetIntegerExclusive(random, maximumSize);
+	}
+
+	// for callers that need their own random state (e.g. one per thread)
+	public static int randomGetIntegerExclusive(Random random, int maximumSize) {
 		if (maximumSize < 1)
 			return 0;
 
@@ -183,6 +188,11 @@ public class General {
 
 	// inclusive
 	public static boolean randomChance(double chance) {
+		return randomChance(random, chance);
+	}
+
+	// inclusive
+	public static boolean randomChance(Random random, double chance) {
 		if (chance < 0d) {
 			chance = 0d;
 		}
@@ -0,0 +1,43 @@
+package mattjohns.common.math;
+
+/**
+ * Stateless 64 bit hashing based on SplitMix64.
+ *
+ * Unlike a shared java.util.Random nothing needs to be reseeded, the same
+ * inputs always give the same result on any thread.
+ */
+public class HashSplitMix {
+	// golden ratio, the SplitMix64 step
+	public static final long Gamma = 0x9e3779b97f4a7c15L;
+
+	// SplitMix64 output function
+	public static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+		value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+		return value ^ (value >>> 31);
+	}
+
+	// different x, z give different hashes for the same seed
+	public static long of(long seed, int x, int z) {
+		long key = ((long)x << 32) | (z & 0xffffffffL);
+
+		return mix(mix(seed) + key * Gamma);
+	}
+
+	// the index'th value in the sequence starting at hash
+	public static long next(long hash, int index) {
+		return mix(hash + (index + 1) * Gamma);
+	}
+
+	// 0 to bound - 1 from the top 32 bits
+	public static int intGet(long hash, int bound) {
+		assert bound > 0;
+
+		return (int)(((hash >>> 32) * bound) >>> 32);
+	}
+
+	// 0 inclusive to 1 exclusive
+	public static double doubleGet(long hash) {
+		return (hash >>> 11) * 0x1.0p-53;
+	}
+}
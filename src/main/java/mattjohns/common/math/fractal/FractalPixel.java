@@ -0,0 +1,7 @@
+package mattjohns.common.math.fractal;
+
+// value of a 2d fractal at a point, see FractalRenderer
+@FunctionalInterface
+public interface FractalPixel {
+	double get(double x, double y);
+}
@@ -0,0 +1,302 @@
+package mattjohns.common.math.fractal;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import mattjohns.common.storage.StorageException;
+import mattjohns.common.storage.StorageImage;
+
+/**
+ * Renders 2d fractals a rectangle at a time, split into tiles worked out in
+ * parallel on the common fork join pool.
+ *
+ * The kernels do the same sums as Mandelbrot and NewtonFractal but with the
+ * real and imaginary parts in local doubles instead of a new ComplexNumber on
+ * every step. The only difference is the escape test uses the squared
+ * modulus, so a point landing exactly on the radius can come out differently.
+ */
+public class FractalRenderer {
+	// tiles are at most this wide and high
+	protected static final int TileSize = 64;
+
+	protected static final int NewtonIterationMaximum = 512;
+	protected static final double NewtonTolerance = 1E-6;
+	protected static final double NewtonDerivativeStep = 0.000001;
+
+	// roots of z^3 - 1 are 1 and -0.5 +- this i
+	protected static final double NewtonRootIm = Math.sqrt(3) / 2;
+
+	protected static final double Log2 = Math.log(2.0);
+
+	/**
+	 * Fills destination with pixel for each point ((xStart + column) / scale,
+	 * (yStart + row) / scale).
+	 *
+	 * @param destination
+	 * Indexed row * width + column, same as BufferedImage.
+	 */
+	public static void render(double[] destination, int xStart, int yStart, int width, int height, double scale,
+			FractalPixel pixel) {
+		assert destination.length >= width * height;
+
+		ForkJoinPool.commonPool()
+				.invoke(new TileTask(destination, xStart, yStart, width, scale, pixel, 0, 0, width, height));
+	}
+
+	// smoothed escape count for z^2 + c, same as Mandelbrot.get()
+	public static FractalPixel mandelbrot(int iterationMaximum) {
+		return (x, y) -> mandelbrotGet(x, y, iterationMaximum);
+	}
+
+	// smoothed escape count for z^3 - 1, same as Mandelbrot.juliaGet()
+	public static FractalPixel julia(int iterationMaximum) {
+		return (x, y) -> juliaGet(x, y, iterationMaximum);
+	}
+
+	// brightness 0 to 0.96 for roots of z^3 - 1, same as NewtonFractal.get()
+	public static FractalPixel newton() {
+		return FractalRenderer::newtonGet;
+	}
+
+	public static double mandelbrotGet(double x0, double y0, int iterationMaximum) {
+		double re = x0;
+		double im = y0;
+
+		int i = 0;
+		for (i = 0; i < iterationMaximum; i++) {
+			if (re * re + im * im > 4.0)
+				break;
+
+			double reNext = re * re - im * im + x0;
+			im = re * im + im * re + y0;
+			re = reNext;
+		}
+
+		for (int extra = 0; extra < 2; extra++) {
+			double reNext = re * re - im * im + x0;
+			im = re * im + im * re + y0;
+			re = reNext;
+			i++;
+		}
+
+		double modulus = Math.hypot(re, im);
+
+		return (double)i - (Math.log(Math.log(modulus)) / Log2);
+	}
+
+	public static double juliaGet(double x, double y, int iterationMaximum) {
+		double re = x;
+		double im = y;
+
+		int i = 0;
+		for (i = 0; i < iterationMaximum; i++) {
+			if (re * re + im * im > 4.0)
+				break;
+
+			double reNext = juliaStepRe(re, im);
+			im = juliaStepIm(re, im);
+			re = reNext;
+		}
+
+		for (int extra = 0; extra < 2; extra++) {
+			double reNext = juliaStepRe(re, im);
+			im = juliaStepIm(re, im);
+			re = reNext;
+			i++;
+		}
+
+		double modulus = Math.hypot(re, im);
+
+		return (double)i - (Math.log(Math.log(modulus)) / Log2);
+	}
+
+	public static double newtonGet(double x, double y) {
+		double re = x;
+		double im = y;
+
+		// reciprocal of the derivative step, as ComplexNumber.divide() does it
+		double stepScale = NewtonDerivativeStep * NewtonDerivativeStep;
+		double stepReciprocalRe = NewtonDerivativeStep / stepScale;
+		double stepReciprocalIm = -0.0 / stepScale;
+
+		int iterations = 1;
+		while (iterations < NewtonIterationMaximum) {
+			// f(c) = c^3 - 1
+			double squareRe = re * re - im * im;
+			double squareIm = re * im + im * re;
+			double functionRe = (squareRe * re - squareIm * im) - 1;
+			double functionIm = (squareRe * im + squareIm * re) - 0;
+
+			// f(c + h)
+			double stepRe = re + NewtonDerivativeStep;
+			double stepIm = im + 0.0;
+			double stepSquareRe = stepRe * stepRe - stepIm * stepIm;
+			double stepSquareIm = stepRe * stepIm + stepIm * stepRe;
+			double stepFunctionRe = (stepSquareRe * stepRe - stepSquareIm * stepIm) - 1;
+			double stepFunctionIm = (stepSquareRe * stepIm + stepSquareIm * stepRe) - 0;
+
+			// (f(c + h) - f(c)) / h
+			double differenceRe = stepFunctionRe - functionRe;
+			double differenceIm = stepFunctionIm - functionIm;
+			double derivativeRe = differenceRe * stepReciprocalRe - differenceIm * stepReciprocalIm;
+			double derivativeIm = differenceRe * stepReciprocalIm + differenceIm * stepReciprocalRe;
+
+			// c - f(c) / f'(c)
+			double derivativeScale = derivativeRe * derivativeRe + derivativeIm * derivativeIm;
+			double reciprocalRe = derivativeRe / derivativeScale;
+			double reciprocalIm = -derivativeIm / derivativeScale;
+			double quotientRe = functionRe * reciprocalRe - functionIm * reciprocalIm;
+			double quotientIm = functionRe * reciprocalIm + functionIm * reciprocalRe;
+
+			re = re - quotientRe;
+			im = im - quotientIm;
+
+			if (isNearRoot(re, im, 1, 0) || isNearRoot(re, im, -.5, NewtonRootIm)
+					|| isNearRoot(re, im, -.5, -NewtonRootIm)) {
+				return Math.pow(0.96, iterations);
+			}
+
+			iterations++;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Grey ARGB pixels from rendered values.
+	 *
+	 * @param minimum
+	 * Black, lower values are clamped.
+	 *
+	 * @param maximum
+	 * White, higher values are clamped.
+	 */
+	public static void argbCopy(double[] valueList, int[] destination, int size, double minimum, double maximum) {
+		double range = maximum - minimum;
+
+		for (int i = 0; i < size; i++) {
+			double value = range > 0.0 ? (valueList[i] - minimum) / range : 0.0;
+
+			// NaN where a point never escaped the log
+			if (!(value > 0.0)) {
+				value = 0.0;
+			} else if (value > 1.0) {
+				value = 1.0;
+			}
+
+			int grey = (int)(value * 255.0);
+
+			destination[i] = 0xff000000 | (grey << 16) | (grey << 8) | grey;
+		}
+	}
+
+	public static BufferedImage imageGet(double[] valueList, int width, int height, double minimum, double maximum) {
+		int[] argbList = new int[width * height];
+		argbCopy(valueList, argbList, argbList.length, minimum, maximum);
+
+		BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		result.setRGB(0, 0, width, height, argbList, 0, width);
+
+		return result;
+	}
+
+	// renders and saves as a png, mainly for previewing terrain
+	public static void copyToPath(String filePath, int xStart, int yStart, int width, int height, double scale,
+			FractalPixel pixel, double minimum, double maximum) throws StorageException {
+		double[] valueList = new double[width * height];
+		render(valueList, xStart, yStart, width, height, scale, pixel);
+
+		StorageImage.copyToPath(imageGet(valueList, width, height, minimum, maximum), filePath);
+	}
+
+	// z^3 + (-1, 0), multiplied in the same order as ComplexNumber.cube()
+	protected static double juliaStepRe(double re, double im) {
+		double squareRe = re * re - im * im;
+		double squareIm = re * im + im * re;
+
+		return (squareRe * re - squareIm * im) + -1.0;
+	}
+
+	protected static double juliaStepIm(double re, double im) {
+		double squareRe = re * re - im * im;
+		double squareIm = re * im + im * re;
+
+		return (squareRe * im + squareIm * re) + 0.0;
+	}
+
+	protected static boolean isNearRoot(double re, double im, double rootRe, double rootIm) {
+		return Math.abs(re - rootRe) < NewtonTolerance && Math.abs(im - rootIm) < NewtonTolerance;
+	}
+
+	protected static class TileTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		protected final double[] destination;
+		protected final int xStart;
+		protected final int yStart;
+		protected final int width;
+		protected final double scale;
+		protected final FractalPixel pixel;
+
+		// part of the rectangle this task does
+		protected final int columnBegin;
+		protected final int rowBegin;
+		protected final int columnEnd;
+		protected final int rowEnd;
+
+		protected TileTask(double[] destination, int xStart, int yStart, int width, double scale, FractalPixel pixel,
+				int columnBegin, int rowBegin, int columnEnd, int rowEnd) {
+			this.destination = destination;
+			this.xStart = xStart;
+			this.yStart = yStart;
+			this.width = width;
+			this.scale = scale;
+			this.pixel = pixel;
+			this.columnBegin = columnBegin;
+			this.rowBegin = rowBegin;
+			this.columnEnd = columnEnd;
+			this.rowEnd = rowEnd;
+		}
+
+		@Override
+		protected void compute() {
+			int tileWidth = columnEnd - columnBegin;
+			int tileHeight = rowEnd - rowBegin;
+
+			if (tileWidth <= TileSize && tileHeight <= TileSize) {
+				tileRender();
+				return;
+			}
+
+			// split the longer side
+			if (tileWidth >= tileHeight) {
+				int columnMiddle = (columnBegin + columnEnd) >>> 1;
+
+				invokeAll(taskOf(columnBegin, rowBegin, columnMiddle, rowEnd),
+						taskOf(columnMiddle, rowBegin, columnEnd, rowEnd));
+			} else {
+				int rowMiddle = (rowBegin + rowEnd) >>> 1;
+
+				invokeAll(taskOf(columnBegin, rowBegin, columnEnd, rowMiddle),
+						taskOf(columnBegin, rowMiddle, columnEnd, rowEnd));
+			}
+		}
+
+		protected TileTask taskOf(int columnBegin, int rowBegin, int columnEnd, int rowEnd) {
+			return new TileTask(destination, xStart, yStart, width, scale, pixel, columnBegin, rowBegin, columnEnd,
+					rowEnd);
+		}
+
+		protected void tileRender() {
+			for (int row = rowBegin; row < rowEnd; row++) {
+				double y = (double)(yStart + row) / scale;
+				int index = row * width + columnBegin;
+
+				for (int column = columnBegin; column < columnEnd; column++) {
+					destination[index++] = pixel.get((double)(xStart + column) / scale, y);
+				}
+			}
+		}
+	}
+}
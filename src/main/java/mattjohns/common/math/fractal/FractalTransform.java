@@ -0,0 +1,86 @@
+package mattjohns.common.math.fractal;
+
+import mattjohns.common.immutable.Immutable;
+import mattjohns.common.math.HashSplitMix;
+
+/**
+ * Maps block coordinates to the point a FractalVolume is worked out at, block
+ * plus offset then times scale.
+ */
+public class FractalTransform extends Immutable<FractalTransform> {
+	// block coordinates used as they are
+	public static final FractalTransform Identity = new FractalTransform(1d, 1d, 1d, 0d, 0d, 0d);
+
+	public final double scaleX;
+	public final double scaleY;
+	public final double scaleZ;
+
+	public final double offsetX;
+	public final double offsetY;
+	public final double offsetZ;
+
+	protected FractalTransform(double scaleX, double scaleY, double scaleZ, double offsetX, double offsetY,
+			double offsetZ) {
+		this.scaleX = scaleX;
+		this.scaleY = scaleY;
+		this.scaleZ = scaleZ;
+		this.offsetX = offsetX;
+		this.offsetY = offsetY;
+		this.offsetZ = offsetZ;
+	}
+
+	public static FractalTransform of(double scaleX, double scaleY, double scaleZ) {
+		return new FractalTransform(scaleX, scaleY, scaleZ, 0d, 0d, 0d);
+	}
+
+	public static FractalTransform of(double scaleX, double scaleY, double scaleZ, double offsetX, double offsetY,
+			double offsetZ) {
+		return new FractalTransform(scaleX, scaleY, scaleZ, offsetX, offsetY, offsetZ);
+	}
+
+	public double x(int x) {
+		return ((double)x + offsetX) * scaleX;
+	}
+
+	public double y(int y) {
+		return ((double)y + offsetY) * scaleY;
+	}
+
+	public double z(int z) {
+		return ((double)z + offsetZ) * scaleZ;
+	}
+
+	// folds every value into a running hash
+	public long keyMix(long key) {
+		long result = key;
+		result = HashSplitMix.mix(result + Double.doubleToLongBits(scaleX));
+		result = HashSplitMix.mix(result + Double.doubleToLongBits(scaleY));
+		result = HashSplitMix.mix(result + Double.doubleToLongBits(scaleZ));
+		result = HashSplitMix.mix(result + Double.doubleToLongBits(offsetX));
+		result = HashSplitMix.mix(result + Double.doubleToLongBits(offsetY));
+		result = HashSplitMix.mix(result + Double.doubleToLongBits(offsetZ));
+		return result;
+	}
+
+	// bit for bit, same as Arrays.equals() on doubles
+	@Override
+	public boolean equals(Object object) {
+		if (!(object instanceof FractalTransform)) {
+			return false;
+		}
+
+		FractalTransform other = (FractalTransform)object;
+
+		return Double.doubleToLongBits(scaleX) == Double.doubleToLongBits(other.scaleX)
+				&& Double.doubleToLongBits(scaleY) == Double.doubleToLongBits(other.scaleY)
+				&& Double.doubleToLongBits(scaleZ) == Double.doubleToLongBits(other.scaleZ)
+				&& Double.doubleToLongBits(offsetX) == Double.doubleToLongBits(other.offsetX)
+				&& Double.doubleToLongBits(offsetY) == Double.doubleToLongBits(other.offsetY)
+				&& Double.doubleToLongBits(offsetZ) == Double.doubleToLongBits(other.offsetZ);
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(keyMix(0L));
+	}
+}
@@ -0,0 +1,67 @@
+package mattjohns.common.math.fractal;
+
+import mattjohns.common.math.HashSplitMix;
+
+/**
+ * A fractal that can be worked out per block, for FractalVolumeCache.
+ *
+ * Blocks are mapped to fractal space by transform(). get() must only depend
+ * on the point and parameterList(), fractals of the same class with equal
+ * parameters and transform are the same shape.
+ */
+public interface FractalVolume {
+	// a section is 16 x 16 x 16, 4096 bits
+	public static final int SectionSize = 16;
+	public static final int SectionMaskSize = SectionSize * SectionSize * SectionSize / 64;
+
+	// point in fractal space
+	boolean get(double x, double y, double z);
+
+	FractalTransform transform();
+
+	// the fractal's own values, not including the transform
+	double[] parameterList();
+
+	default boolean get(int x, int y, int z) {
+		FractalTransform transform = transform();
+
+		return get(transform.x(x), transform.y(y), transform.z(z));
+	}
+
+	// Same for fractals with the same class, parameters and transform. Only a
+	// hash, different fractals can share a key.
+	default long parameterKey() {
+		long result = HashSplitMix.mix(getClass().getName().hashCode());
+
+		for (double parameter : parameterList()) {
+			result = HashSplitMix.mix(result + Double.doubleToLongBits(parameter));
+		}
+
+		return transform().keyMix(result);
+	}
+
+	/**
+	 * @param destination
+	 * SectionMaskSize longs, bit (y << 8) | (z << 4) | x is set if the block is
+	 * inside. Same order as a chunk section.
+	 */
+	default void sectionCopy(long[] destination, int sectionX, int sectionY, int sectionZ) {
+		int xStart = sectionX * SectionSize;
+		int yStart = sectionY * SectionSize;
+		int zStart = sectionZ * SectionSize;
+
+		for (int word = 0; word < SectionMaskSize; word++) {
+			long bitList = 0L;
+
+			for (int bit = 0; bit < 64; bit++) {
+				int index = (word << 6) | bit;
+
+				if (get(xStart + (index & 15), yStart + (index >> 8), zStart + ((index >> 4) & 15))) {
+					bitList |= 1L << bit;
+				}
+			}
+
+			destination[word] = bitList;
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package mattjohns.common.math.fractal;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps fractal sections that have already been worked out, so regenerating
+ * the same terrain again is a lookup.
+ *
+ * Sections are 16x16x16 bit masks keyed by the fractal's class, parameters,
+ * transform and section position. Keys compare the actual values, so two
+ * fractals are only ever confused if they are the same shape. Memory use is bounded in bytes with the least
+ * recently used sections dropped first, or moved to a memory mapped spill
+ * file if there is one.
+ *
+ * Thread safe. Fractals are worked out outside the lock so two threads may
+ * work out the same section at once, they get the same result.
+ */
+public class FractalVolumeCache {
+	// 64 longs plus the key, map entry and object headers, roughly
+	protected static final long EntryByteSize = FractalVolume.SectionMaskSize * 8 + 128;
+
+	protected final int entryListSizeMaximum;
+
+	protected final LinkedHashMap<SectionKey, long[]> sectionMap;
+
+	// null if there isn't one
+	protected final FractalVolumeSpill spill;
+
+	protected FractalVolumeCache(long byteMaximum, FractalVolumeSpill spill) {
+		this.spill = spill;
+
+		entryListSizeMaximum = (int)Math.max(Math.min(byteMaximum / EntryByteSize, Integer.MAX_VALUE), 1);
+
+		sectionMap = new LinkedHashMap<SectionKey, long[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<SectionKey, long[]> eldest) {
+				if (size() <= FractalVolumeCache.this.entryListSizeMaximum) {
+					return false;
+				}
+
+				if (FractalVolumeCache.this.spill != null) {
+					FractalVolumeCache.this.spill.write(eldest.getKey(), eldest.getValue());
+				}
+
+				return true;
+			}
+		};
+	}
+
+	// memory only
+	public static FractalVolumeCache of(long byteMaximum) {
+		return new FractalVolumeCache(byteMaximum, null);
+	}
+
+	/**
+	 * @param spillPath
+	 * File for sections pushed out of memory, emptied when opened and deleted by
+	 * close(). If it can't be created the cache is memory only and
+	 * isSpillValid() is false.
+	 */
+	public static FractalVolumeCache of(long byteMaximum, String spillPath, long spillByteMaximum) {
+		return new FractalVolumeCache(byteMaximum, FractalVolumeSpill.of(spillPath, spillByteMaximum));
+	}
+
+	/**
+	 * @return FractalVolume.SectionMaskSize longs in FractalVolume.sectionCopy()
+	 * order. Shared with other callers so must not be changed.
+	 */
+	public long[] sectionGet(FractalVolume fractal, int sectionX, int sectionY, int sectionZ) {
+		SectionKey key = new SectionKey(fractal, sectionX, sectionY, sectionZ);
+
+		long[] result;
+
+		synchronized (this) {
+			result = sectionMap.get(key);
+
+			if (result == null && spill != null) {
+				result = spill.read(key);
+
+				if (result != null) {
+					sectionMap.put(key, result);
+				}
+			}
+		}
+
+		if (result == null) {
+			result = new long[FractalVolume.SectionMaskSize];
+			fractal.sectionCopy(result, sectionX, sectionY, sectionZ);
+
+			synchronized (this) {
+				sectionMap.put(key, result);
+			}
+		}
+
+		return result;
+	}
+
+	// single block through its section
+	public boolean get(FractalVolume fractal, int x, int y, int z) {
+		long[] section = sectionGet(fractal, x >> 4, y >> 4, z >> 4);
+
+		int index = ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+
+		return (section[index >>> 6] & (1L << index)) != 0;
+	}
+
+	// memory in use, not counting the spill file
+	public synchronized long byteSize() {
+		return sectionMap.size() * EntryByteSize;
+	}
+
+	public boolean isSpillValid() {
+		return spill == null || spill.isValid();
+	}
+
+	public synchronized void clear() {
+		sectionMap.clear();
+
+		if (spill != null) {
+			spill.clear();
+		}
+	}
+
+	// can't be used after this
+	public synchronized void close() {
+		sectionMap.clear();
+
+		if (spill != null) {
+			spill.close();
+		}
+	}
+
+	protected static class SectionKey {
+		public final Class<?> fractalClass;
+		public final double[] parameterList;
+		public final FractalTransform transform;
+
+		// only for hashing
+		public final long parameterKey;
+
+		public final int sectionX;
+		public final int sectionY;
+		public final int sectionZ;
+
+		public SectionKey(FractalVolume fractal, int sectionX, int sectionY, int sectionZ) {
+			this.fractalClass = fractal.getClass();
+			this.parameterList = fractal.parameterList().clone();
+			this.transform = fractal.transform();
+			this.parameterKey = fractal.parameterKey();
+			this.sectionX = sectionX;
+			this.sectionY = sectionY;
+			this.sectionZ = sectionZ;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof SectionKey)) {
+				return false;
+			}
+
+			SectionKey other = (SectionKey)object;
+
+			return fractalClass == other.fractalClass && sectionX == other.sectionX && sectionY == other.sectionY
+					&& sectionZ == other.sectionZ && Arrays.equals(parameterList, other.parameterList)
+					&& transform.equals(other.transform);
+		}
+
+		@Override
+		public int hashCode() {
+			int result = Long.hashCode(parameterKey);
+			result = result * 31 + sectionX;
+			result = result * 31 + sectionY;
+			result = result * 31 + sectionZ;
+			return result;
+		}
+	}
+}
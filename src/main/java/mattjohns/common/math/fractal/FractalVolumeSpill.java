@@ -0,0 +1,126 @@
+package mattjohns.common.math.fractal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Memory mapped file that FractalVolumeCache moves sections to when they're
+ * pushed out of memory.
+ *
+ * The file is a ring of fixed size slots, when it's full the oldest section
+ * is overwritten. Only a cache for the running server, which slot holds which
+ * section is kept in memory.
+ *
+ * Not thread safe, FractalVolumeCache locks around it.
+ */
+public class FractalVolumeSpill {
+	protected static final int SlotLongSize = FractalVolume.SectionMaskSize;
+	protected static final long SlotByteSize = SlotLongSize * 8;
+
+	protected final String path;
+
+	// null if the file couldn't be mapped
+	protected LongBuffer buffer;
+
+	protected final HashMap<FractalVolumeCache.SectionKey, Integer> slotMap = new HashMap<>();
+	protected FractalVolumeCache.SectionKey[] slotKeyList;
+
+	// next slot to write, wraps around
+	protected int slotNext;
+
+	protected FractalVolumeSpill(String path, long byteMaximum) {
+		this.path = path;
+
+		// a single mapping is at most 2GB
+		long slotListSize = Math.min(byteMaximum / SlotByteSize, Integer.MAX_VALUE / SlotByteSize);
+
+		if (slotListSize > 0) {
+			slotKeyList = new FractalVolumeCache.SectionKey[(int)slotListSize];
+			buffer = map(path, slotListSize * SlotByteSize);
+		}
+	}
+
+	public static FractalVolumeSpill of(String path, long byteMaximum) {
+		return new FractalVolumeSpill(path, byteMaximum);
+	}
+
+	public boolean isValid() {
+		return buffer != null;
+	}
+
+	public void write(FractalVolumeCache.SectionKey key, long[] section) {
+		if (buffer == null || slotMap.containsKey(key)) {
+			return;
+		}
+
+		int slot = slotNext;
+		slotNext = (slotNext + 1) % slotKeyList.length;
+
+		if (slotKeyList[slot] != null) {
+			slotMap.remove(slotKeyList[slot]);
+		}
+
+		int offset = slot * SlotLongSize;
+		for (int i = 0; i < SlotLongSize; i++) {
+			buffer.put(offset + i, section[i]);
+		}
+
+		slotKeyList[slot] = key;
+		slotMap.put(key, slot);
+	}
+
+	// null if not in the file
+	public long[] read(FractalVolumeCache.SectionKey key) {
+		Integer slot = slotMap.get(key);
+		if (slot == null) {
+			return null;
+		}
+
+		long[] result = new long[SlotLongSize];
+
+		int offset = slot * SlotLongSize;
+		for (int i = 0; i < SlotLongSize; i++) {
+			result[i] = buffer.get(offset + i);
+		}
+
+		return result;
+	}
+
+	public void clear() {
+		slotMap.clear();
+
+		if (slotKeyList != null) {
+			Arrays.fill(slotKeyList, null);
+		}
+
+		slotNext = 0;
+	}
+
+	// mapping is let go rather than unmapped, java has no way to force it
+	public void close() {
+		clear();
+
+		if (buffer != null) {
+			buffer = null;
+			new File(path).delete();
+		}
+	}
+
+	protected static LongBuffer map(String path, long byteSize) {
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(path, "rw")) {
+			// anything left from before is stale
+			randomAccessFile.setLength(0);
+			randomAccessFile.setLength(byteSize);
+
+			// stays valid after the channel is closed
+			return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, byteSize).asLongBuffer();
+		} catch (IOException exception) {
+			return null;
+		}
+	}
+}
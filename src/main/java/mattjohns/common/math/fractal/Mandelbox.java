@@ -1,18 +1,31 @@
 package mattjohns.common.math.fractal;
 
-public class Mandelbox {
+public class Mandelbox implements FractalVolume {
 	private double scale;
 	private double distance;
+	private FractalTransform transform;
 
 	public Mandelbox(double scale, double distance) {
+		this(scale, distance, FractalTransform.Identity);
+	}
+
+	public Mandelbox(double scale, double distance, FractalTransform transform) {
 		this.scale = scale;
 		this.distance = distance;
+		this.transform = transform;
+	}
+
+	@Override
+	public FractalTransform transform() {
+		return transform;
 	}
 
-	public boolean get(int x, int y, int z) {
-		return get((double)x, (double)y, (double)z);
+	@Override
+	public double[] parameterList() {
+		return new double[] { scale, distance };
 	}
 
+	@Override
 	public boolean get(double x, double y, double z) {
 		int s = 7;
 		x *= s;
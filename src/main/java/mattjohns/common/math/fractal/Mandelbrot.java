@@ -78,6 +78,28 @@ public class Mandelbrot {
 		return (double)i - (Math.log(Math.log(modulus)) / Math.log(2.0));
 	}
 
+	/**
+	 * get() for a whole rectangle in parallel, see FractalRenderer.render().
+	 *
+	 * @param destination
+	 * Indexed row * width + column.
+	 */
+	public void render(double[] destination, int xStart, int yStart, int width, int height) {
+		FractalRenderer.render(destination, xStart, yStart, width, height, scale,
+				FractalRenderer.mandelbrot(iterationMaximum));
+	}
+
+	// juliaGet() for a whole rectangle
+	public void juliaRender(double[] destination, int xStart, int yStart, int width, int height) {
+		FractalRenderer.render(destination, xStart, yStart, width, height, scale,
+				FractalRenderer.julia(iterationMaximum));
+	}
+
+	// newtonGet() for a whole rectangle
+	public void newtonRender(double[] destination, int xStart, int yStart, int width, int height) {
+		FractalRenderer.render(destination, xStart, yStart, width, height, scale, FractalRenderer.newton());
+	}
+
 	// returns brightness between 0 and 0.96
 	public double newtonGet(int x, int y) {
 		int[] arr = applyNewtonMethod((double)x / scale, (double)y / scale);
@@ -1,18 +1,31 @@
 package mattjohns.common.math.fractal;
 
-public class MengerSponge {
+public class MengerSponge implements FractalVolume {
 	private double scale;
 	private double distance;
+	private FractalTransform transform;
 
 	public MengerSponge(double scale, double distance) {
+		this(scale, distance, FractalTransform.Identity);
+	}
+
+	public MengerSponge(double scale, double distance, FractalTransform transform) {
 		this.scale = scale;
 		this.distance = distance;
+		this.transform = transform;
+	}
+
+	@Override
+	public FractalTransform transform() {
+		return transform;
 	}
 
-	public boolean get(int x, int y, int z) {
-		return get((double)x, (double)y, (double)z);
+	@Override
+	public double[] parameterList() {
+		return new double[] { scale, distance };
 	}
 
+	@Override
 	public boolean get(double x, double y, double z) {
 		double r = x * x + y * y + z * z;
 		// double scale = 3d;
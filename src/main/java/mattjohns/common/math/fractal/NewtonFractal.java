@@ -43,6 +43,11 @@ public class NewtonFractal {
         return pixelReductionFactor;
     }
 
+    // get() for a whole rectangle in parallel, indexed row * width + column
+    public void render(double[] destination, int xStart, int yStart, int width, int height) {
+        FractalRenderer.render(destination, xStart, yStart, width, height, scale, FractalRenderer.newton());
+    }
+
     // https://codereview.stackexchange.com/questions/140254/creating-a-newton-fractal-based-on-a-polynomial/140306
     private int[] applyNewtonMethod(double x, double y) {
         ComplexNumber c = new ComplexNumber(x, y);
@@ -1,5 +1,9 @@
 package mattjohns.common.math.fractal;
 
+import java.util.concurrent.ConcurrentHashMap;
+
+import mattjohns.common.math.HashSplitMix;
+
 /*
  * A speed-improved simplex noise algorithm for 2D, 3D and 4D in Java.
  *
@@ -61,6 +65,23 @@ public class NoiseSimplex {
     }
   }
 
+  // grad3 x and y as flat arrays for the bulk 2D noise
+  private static double grad3X[] = new double[12];
+  private static double grad3Y[] = new double[12];
+  static {
+    for(int i=0; i<12; i++)
+    {
+      grad3X[i] = grad3[i].x;
+      grad3Y[i] = grad3[i].y;
+    }
+  }
+
+  // same table as the static methods
+  private static final NoiseSimplex Default = new NoiseSimplex(p);
+
+  // by seed, only a few worlds so never emptied
+  private static final ConcurrentHashMap<Long, NoiseSimplex> seedMap = new ConcurrentHashMap<>();
+
   // Skewing and unskewing factors for 2, 3, and 4 dimensions
   private static final double F2 = 0.5*(Math.sqrt(3.0)-1.0);
   private static final double G2 = (3.0-Math.sqrt(3.0))/6.0;
@@ -75,9 +96,6 @@ public class NoiseSimplex {
     return x<xi ? xi-1 : xi;
   }
 
-  private static double dot(Grad g, double x, double y) {
-    return g.x*x + g.y*y; }
-
   private static double dot(Grad g, double x, double y, double z) {
     return g.x*x + g.y*y + g.z*z; }
 
@@ -85,58 +103,16 @@ public class NoiseSimplex {
     return g.x*x + g.y*y + g.z*z + g.w*w; }
 
 
-  // 2D simplex noise
+  // 2D simplex noise with the default table, see get()
   public static double noise(double xin, double yin) {
-    double n0, n1, n2; // Noise contributions from the three corners
-    // Skew the input space to determine which simplex cell we're in
-    double s = (xin+yin)*F2; // Hairy factor for 2D
-    int i = fastfloor(xin+s);
-    int j = fastfloor(yin+s);
-    double t = (i+j)*G2;
-    double X0 = i-t; // Unskew the cell origin back to (x,y) space
-    double Y0 = j-t;
-    double x0 = xin-X0; // The x,y distances from the cell origin
-    double y0 = yin-Y0;
-    // For the 2D case, the simplex shape is an equilateral triangle.
-    // Determine which simplex we are in.
-    int i1, j1; // Offsets for second (middle) corner of simplex in (i,j) coords
-    if(x0>y0) {i1=1; j1=0;} // lower triangle, XY order: (0,0)->(1,0)->(1,1)
-    else {i1=0; j1=1;}      // upper triangle, YX order: (0,0)->(0,1)->(1,1)
-    // A step of (1,0) in (i,j) means a step of (1-c,-c) in (x,y), and
-    // a step of (0,1) in (i,j) means a step of (-c,1-c) in (x,y), where
-    // c = (3-sqrt(3))/6
-    double x1 = x0 - i1 + G2; // Offsets for middle corner in (x,y) unskewed coords
-    double y1 = y0 - j1 + G2;
-    double x2 = x0 - 1.0 + 2.0 * G2; // Offsets for last corner in (x,y) unskewed coords
-    double y2 = y0 - 1.0 + 2.0 * G2;
-    // Work out the hashed gradient indices of the three simplex corners
-    int ii = i & 255;
-    int jj = j & 255;
-    int gi0 = permMod12[ii+perm[jj]];
-    int gi1 = permMod12[ii+i1+perm[jj+j1]];
-    int gi2 = permMod12[ii+1+perm[jj+1]];
-    // Calculate the contribution from the three corners
-    double t0 = 0.5 - x0*x0-y0*y0;
-    if(t0<0) n0 = 0.0;
-    else {
-      t0 *= t0;
-      n0 = t0 * t0 * dot(grad3[gi0], x0, y0);  // (x,y) of grad3 used for 2D gradient
-    }
-    double t1 = 0.5 - x1*x1-y1*y1;
-    if(t1<0) n1 = 0.0;
-    else {
-      t1 *= t1;
-      n1 = t1 * t1 * dot(grad3[gi1], x1, y1);
-    }
-    double t2 = 0.5 - x2*x2-y2*y2;
-    if(t2<0) n2 = 0.0;
-    else {
-      t2 *= t2;
-      n2 = t2 * t2 * dot(grad3[gi2], x2, y2);
-    }
-    // Add contributions from each corner to get the final noise value.
-    // The result is scaled to return values in the interval [-1,1].
-    return 70.0 * (n0 + n1 + n2);
+    return Default.get(xin, yin);
+  }
+
+
+  // 2D simplex noise for a grid of points with the default table, see get()
+  public static void noise(double[] destination, double xStart, double yStart, int xSize, int ySize,
+      double frequency) {
+    Default.get(destination, xStart, yStart, xSize, ySize, frequency);
   }
 
 
@@ -338,6 +314,172 @@ public class NoiseSimplex {
     return 27.0 * (n0 + n1 + n2 + n3 + n4);
   }
 
+  // Instance noise, each seed has its own shuffled permutation table.
+  // Only 2D for now, the 3D and 4D static methods use the default table.
+
+  private final short permList[] = new short[512];
+  private final short permMod12List[] = new short[512];
+
+  private NoiseSimplex(short[] source) {
+    for(int i=0; i<512; i++)
+    {
+      permList[i] = source[i & 255];
+      permMod12List[i] = (short)(permList[i] % 12);
+    }
+  }
+
+  // same noise as the static methods
+  public static NoiseSimplex of() {
+    return Default;
+  }
+
+  // built the first time a seed is used and kept after that
+  public static NoiseSimplex of(long seed) {
+    return seedMap.computeIfAbsent(seed, NoiseSimplex::permutationDerive);
+  }
+
+  private static NoiseSimplex permutationDerive(long seed) {
+    short source[] = new short[256];
+    for(int i=0; i<256; i++)
+      source[i] = (short)i;
+
+    // Fisher-Yates shuffle
+    long hash = HashSplitMix.mix(seed);
+    for(int i=255; i>0; i--) {
+      int j = HashSplitMix.intGet(HashSplitMix.next(hash, i), i + 1);
+      short swap = source[i];
+      source[i] = source[j];
+      source[j] = swap;
+    }
+
+    return new NoiseSimplex(source);
+  }
+
+  // 2D simplex noise
+  public double get(double xin, double yin) {
+    double n0, n1, n2;
+    double s = (xin+yin)*F2;
+    int i = fastfloor(xin+s);
+    int j = fastfloor(yin+s);
+    double t = (i+j)*G2;
+    double X0 = i-t;
+    double Y0 = j-t;
+    double x0 = xin-X0;
+    double y0 = yin-Y0;
+    int i1, j1;
+    if(x0>y0) {i1=1; j1=0;}
+    else {i1=0; j1=1;}
+    double x1 = x0 - i1 + G2;
+    double y1 = y0 - j1 + G2;
+    double x2 = x0 - 1.0 + 2.0 * G2;
+    double y2 = y0 - 1.0 + 2.0 * G2;
+    int ii = i & 255;
+    int jj = j & 255;
+    double t0 = 0.5 - x0*x0-y0*y0;
+    if(t0<0) n0 = 0.0;
+    else {
+      int gi0 = permMod12List[ii+permList[jj]];
+      t0 *= t0;
+      n0 = t0 * t0 * (grad3X[gi0]*x0 + grad3Y[gi0]*y0);
+    }
+    double t1 = 0.5 - x1*x1-y1*y1;
+    if(t1<0) n1 = 0.0;
+    else {
+      int gi1 = permMod12List[ii+i1+permList[jj+j1]];
+      t1 *= t1;
+      n1 = t1 * t1 * (grad3X[gi1]*x1 + grad3Y[gi1]*y1);
+    }
+    double t2 = 0.5 - x2*x2-y2*y2;
+    if(t2<0) n2 = 0.0;
+    else {
+      int gi2 = permMod12List[ii+1+permList[jj+1]];
+      t2 *= t2;
+      n2 = t2 * t2 * (grad3X[gi2]*x2 + grad3Y[gi2]*y2);
+    }
+    return 70.0 * (n0 + n1 + n2);
+  }
+
+  // 2D simplex noise for a grid of points, same result as calling get() for
+  // each point ((xStart + xi) / frequency, (yStart + yi) / frequency).
+  // destination is indexed xi * ySize + yi, so a 16x16 grid lines up with
+  // ChunkSlice.index().
+  public void get(double[] destination, double xStart, double yStart, int xSize, int ySize,
+      double frequency) {
+    // same for every row
+    double yinList[] = new double[ySize];
+    for(int yi=0; yi<ySize; yi++)
+      yinList[yi] = (yStart + yi) / frequency;
+    int index = 0;
+    for(int xi=0; xi<xSize; xi++) {
+      // same for the whole row
+      double xin = (xStart + xi) / frequency;
+      for(int yi=0; yi<ySize; yi++)
+        destination[index++] = get(xin, yinList[yi]);
+    }
+  }
+
+  // Several fields over the same grid in one pass, destinationList[k] gets
+  // the same values as get(destinationList[k], ..., frequencyList[k]).
+  public void get(double[][] destinationList, double xStart, double yStart, int xSize, int ySize,
+      double[] frequencyList) {
+    int fieldListSize = frequencyList.length;
+    double yinList[] = yinListDerive(yStart, ySize, frequencyList);
+    double xinList[] = new double[fieldListSize];
+    int index = 0;
+    for(int xi=0; xi<xSize; xi++) {
+      double x = xStart + xi;
+      for(int k=0; k<fieldListSize; k++)
+        xinList[k] = x / frequencyList[k];
+      for(int yi=0; yi<ySize; yi++) {
+        for(int k=0; k<fieldListSize; k++)
+          destinationList[k][index] = get(xinList[k], yinList[k*ySize+yi]);
+        index++;
+      }
+    }
+  }
+
+  // Fractal (fBm) noise over a grid, all octaves in one pass. Each octave
+  // divides frequency by lacunarity and multiplies the amplitude by gain.
+  // The sum is divided by the total amplitude so it stays within [-1,1].
+  public void fractalGet(double[] destination, double xStart, double yStart, int xSize, int ySize,
+      double frequency, int octaveListSize, double lacunarity, double gain) {
+    double frequencyList[] = new double[octaveListSize];
+    double amplitudeList[] = new double[octaveListSize];
+    double amplitudeTotal = 0.0;
+    double octaveFrequency = frequency;
+    double amplitude = 1.0;
+    for(int k=0; k<octaveListSize; k++) {
+      frequencyList[k] = octaveFrequency;
+      amplitudeList[k] = amplitude;
+      amplitudeTotal += amplitude;
+      octaveFrequency /= lacunarity;
+      amplitude *= gain;
+    }
+    double yinList[] = yinListDerive(yStart, ySize, frequencyList);
+    double xinList[] = new double[octaveListSize];
+    int index = 0;
+    for(int xi=0; xi<xSize; xi++) {
+      double x = xStart + xi;
+      for(int k=0; k<octaveListSize; k++)
+        xinList[k] = x / frequencyList[k];
+      for(int yi=0; yi<ySize; yi++) {
+        double sum = 0.0;
+        for(int k=0; k<octaveListSize; k++)
+          sum += amplitudeList[k] * get(xinList[k], yinList[k*ySize+yi]);
+        destination[index++] = sum / amplitudeTotal;
+      }
+    }
+  }
+
+  // scaled y for each field, indexed k * ySize + yi
+  private static double[] yinListDerive(double yStart, int ySize, double[] frequencyList) {
+    double result[] = new double[frequencyList.length * ySize];
+    for(int k=0; k<frequencyList.length; k++)
+      for(int yi=0; yi<ySize; yi++)
+        result[k*ySize+yi] = (yStart + yi) / frequencyList[k];
+    return result;
+  }
+
   // Inner class to speed upp gradient computations
   // (In Java, array access is a lot slower than member access)
   private static class Grad
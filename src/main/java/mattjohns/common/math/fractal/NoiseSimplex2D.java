@@ -6,7 +6,15 @@ public class NoiseSimplex2D {
 	protected double frequency;
 	protected double amplitude;
 
+	protected NoiseSimplex noise;
+
 	public NoiseSimplex2D(double frequency, double amplitude) {
+		this(frequency, amplitude, NoiseSimplex.of());
+	}
+
+	// noise is usually NoiseSimplex.of(seed) so each world is different
+	public NoiseSimplex2D(double frequency, double amplitude, NoiseSimplex noise) {
+		this.noise = noise;
 		this.frequency = frequency;
 		if (General.isNearlyZero(this.frequency)) {
 			this.frequency = 1.0;
@@ -15,6 +23,14 @@ public class NoiseSimplex2D {
 		this.amplitude = amplitude;
 	}
 
+	public double frequency() {
+		return frequency;
+	}
+
+	public NoiseSimplex noise() {
+		return noise;
+	}
+
 	public int getInt(int x, int y) {
 		return (int)get((double)x, (double)y);
 	}
@@ -26,7 +42,29 @@ public class NoiseSimplex2D {
 	}
 
 	public double rawGet(double x, double y) {
-		return NoiseSimplex.noise(x / frequency, y / frequency);
+		return noise.get(x / frequency, y / frequency);
+	}
+
+	/**
+	 * Fills destination with rawGet() for a grid of points starting at xStart,
+	 * yStart. The values are exactly the same as calling rawGet() for each
+	 * point.
+	 *
+	 * @param destination
+	 * Indexed x * ySize + y, must have room for xSize * ySize values.
+	 */
+	public void rawGet(double[] destination, int xStart, int yStart, int xSize, int ySize) {
+		noise.get(destination, (double)xStart, (double)yStart, xSize, ySize, frequency);
+	}
+
+	// same as rawGet() then multiplied by amplitude
+	public void get(double[] destination, int xStart, int yStart, int xSize, int ySize) {
+		rawGet(destination, xStart, yStart, xSize, ySize);
+
+		int size = xSize * ySize;
+		for (int i = 0; i < size; i++) {
+			destination[i] *= amplitude;
+		}
 	}
 
 	public double normalGet(double x, double y) {
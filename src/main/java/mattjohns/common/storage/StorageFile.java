@@ -4,6 +4,7 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
@@ -235,4 +236,62 @@ public class StorageFile {
 		
 		return builder.toString();
 	}
+
+	public static byte[] getBytes(String path) throws StorageException {
+		if (!isExist(path)) {
+			throw new StorageException("File \"" + path + "\" doesn't exists.");
+		}
+
+		try {
+			return Files.readAllBytes(Paths.get(path));
+		}
+		catch (IOException exception) {
+			throw new StorageException(exception);
+		}
+	}
+
+	/**
+	 * Writes the whole file so that readers only ever see the old content or
+	 * the new content, never a partial write (e.g. if the program is killed
+	 * half way through).
+	 * <p>
+	 * Content goes to a temporary file in the same directory which is then
+	 * moved over the original.
+	 */
+	public static void replaceBytes(String path, byte[] content) throws StorageException {
+		String temporaryPath = path + ".tmp";
+
+		try {
+			Files.write(Paths.get(temporaryPath), content);
+		}
+		catch (IOException exception) {
+			throw new StorageException(exception);
+		}
+
+		replace(path, temporaryPath);
+	}
+
+	/**
+	 * Moves an already written temporary file over the given file in one step
+	 * where the file system allows it. Keep the temporary file in the same
+	 * directory.
+	 */
+	public static void replace(String path, String temporaryPath) throws StorageException {
+		Path filePath = Paths.get(path);
+		Path temporaryFilePath = Paths.get(temporaryPath);
+
+		try {
+			try {
+				Files.move(temporaryFilePath, filePath, StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException exception) {
+				// file system can't do it, next best thing
+				Files.move(temporaryFilePath, filePath, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch (IOException exception) {
+			throw new StorageException(exception);
+		}
+	}
 }
@@ -39,4 +39,21 @@ public class StorageImage {
 			throw new StorageException("Unable to copy image from stream \"" + item.toString() + "\".", exception);
 		}
 	}
+
+	// png
+	public static void copyToPath(BufferedImage image, String filePath) throws StorageException {
+		copyToFile(image, new File(filePath));
+	}
+
+	// png
+	public static void copyToFile(BufferedImage image, File file) throws StorageException {
+		try {
+			if (!ImageIO.write(image, "png", file)) {
+				throw new StorageException("Unable to copy image to file \"" + file.toString() + "\".");
+			}
+		}
+		catch (IOException exception) {
+			throw new StorageException("Unable to copy image to file \"" + file.toString() + "\".", exception);
+		}
+	}
 }
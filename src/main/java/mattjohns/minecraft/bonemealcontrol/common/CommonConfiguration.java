@@ -5,6 +5,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import net.minecraftforge.common.MinecraftForge;
+
 import mattjohns.common.storage.StorageException;
 import mattjohns.common.storage.StorageJson;
 import mattjohns.minecraft.bonemealcontrol.server.grow.GrowCustomFillJson;
@@ -13,10 +15,15 @@ import mattjohns.minecraft.common.log.Log;
 import mattjohns.minecraft.common.storage.ConfigurationBase;
 import mattjohns.minecraft.common.storage.ConfigurationElement;
 import mattjohns.minecraft.common.storage.ConfigurationElementBoolean;
+import mattjohns.minecraft.common.storage.ConfigurationElementChange;
 import mattjohns.minecraft.common.storage.ConfigurationElementDouble;
 import mattjohns.minecraft.common.storage.ConfigurationElementInteger;
 import mattjohns.minecraft.common.storage.ConfigurationElementList;
 import mattjohns.minecraft.common.storage.ConfigurationElementString;
+import mattjohns.minecraft.common.storage.ConfigurationElementStringList;
+import mattjohns.minecraft.common.storage.ConfigurationException;
+import mattjohns.minecraft.common.storage.ConfigurationOverride;
+import mattjohns.minecraft.common.storage.ConfigurationSnapshot;
 
 /**
  * Performs logging and tries to fix configuration if there are errors.
@@ -25,6 +32,7 @@ public class CommonConfiguration extends ConfigurationBase {
 	public static final String CategoryVanilla = "vanilla";
 	public static final String CategoryCustom = "custom";
 	public static final String CategoryAnimal = "animal";
+	public static final String CategoryOverride = "override";
 
 	// configuration property
 
@@ -144,6 +152,16 @@ public class CommonConfiguration extends ConfigurationBase {
 			"Json file that contains any custom bone meal tranformations.\n" + "See wiki for format.\n"
 					+ "File should exist in main Minecraft configuration directory but you can also reference a subfolder.");
 
+	// region fill
+	public static final ConfigurationElementInteger ElementRegionFillTickBudget = ConfigurationElementInteger.of(
+			CategoryCustom, "RegionFillTickBudget", 10, 1, 40,
+			"Milliseconds of each server tick that a region fill command can use.\n"
+					+ "A tick is 50 milliseconds so keep this well below that to avoid lag.");
+
+	public static final ConfigurationElementInteger ElementRegionFillReportInterval = ConfigurationElementInteger.of(
+			CategoryCustom, "RegionFillReportInterval", 10, 1, 3600,
+			"Seconds between progress reports while a region fill command is running.");
+
 	// animal
 
 	public static final ConfigurationElementBoolean ElementZombieEnable = ConfigurationElementBoolean.of(CategoryAnimal,
@@ -164,8 +182,31 @@ public class CommonConfiguration extends ConfigurationBase {
 			CategoryAnimal, "AnimalAgeRandomIncrement", 200, 0, 1000,
 			"Random number of seconds to add the animal's age.\n" + "This is added to the fixed increment above.");
 
+	// override
+	public static final ConfigurationElementStringList ElementOverrideList = ConfigurationElementStringList.of(
+			CategoryOverride, "OverrideList", new String[0],
+			"Values that are different in some dimensions or biomes, one per line as \"scope target Key=value\".\n"
+					+ "Scope is \"dimension\" with a dimension id or \"biome\" with a biome name, for example:\n"
+					+ "    dimension -1 WartAgeRandomIncrement=3\n" + "    biome minecraft:desert CactusEnable=true\n"
+					+ "Biome values win over dimension values.");
+
 	// loaded from custom fill json file, otherwise empty list
-	public GrowCustomFillList customFillList;
+	public GrowCustomFillList customFillList = new GrowCustomFillList();
+
+	// element values and custom fill list together, replaced on every reload
+	protected volatile CommonConfigurationSnapshot commonSnapshot;
+
+	// Biome names can't be looked up until the custom fill is loaded at post
+	// initialize, so overrides are ignored before that.
+	protected boolean isOverrideReady = false;
+
+	// from the last time the overrides were compiled
+	protected ArrayList<String> overrideErrorList = new ArrayList<>();
+
+	// last table built and what it was built from
+	protected Optional<CommonConfigurationOverrideTable> overrideTable = Optional.empty();
+	protected ConfigurationSnapshot overrideTableSnapshot;
+	protected GrowCustomFillList overrideTableCustomFillList;
 
 	public CommonConfiguration(Log log) {
 		super(Internal.ConfigurationFilename, Internal.ConfigurationFolder, log);
@@ -205,6 +246,8 @@ public class CommonConfiguration extends ConfigurationBase {
 		result.add(ElementChorusFlowerEnable);
 		result.add(ElementChorusFlowerUpdateChance);
 		result.add(ElementCustomFillFilename);
+		result.add(ElementRegionFillTickBudget);
+		result.add(ElementRegionFillReportInterval);
 
 		result.add(ElementZombieEnable);
 		result.add(ElementZombieAdultChance);
@@ -212,12 +255,45 @@ public class CommonConfiguration extends ConfigurationBase {
 		result.add(ElementAnimalAgeIncrement);
 		result.add(ElementAnimalAgeRandomIncrement);
 
+		result.add(ElementOverrideList);
+
 		return result;
 	}
 
 	// load custom fill types from json
 	public void customFillCopyFromStorage() {
-		customFillList = new GrowCustomFillList();
+		GrowCustomFillList customFillListOld = customFillList;
+		boolean isFirstLoad = !isOverrideReady;
+
+		// build the list fully before anything else can see it
+		GrowCustomFillList customFillListNew = customFillLoad();
+
+		// keep the old list if nothing changed, the override table is only
+		// rebuilt for a different list
+		if (isFirstLoad || !customFillListNew.equals(customFillListOld)) {
+			customFillList = customFillListNew;
+		}
+
+		isOverrideReady = true;
+
+		snapshotDerive();
+
+		if (customFillList != customFillListOld && !isFirstLoad) {
+			MinecraftForge.EVENT_BUS
+					.post(new CommonConfigurationEvent.CustomFillChange(this, customFillListOld, customFillList));
+		}
+
+		if (!overrideErrorList.isEmpty()) {
+			log.error("Some overrides were invalid: ");
+
+			for (String error : overrideErrorList) {
+				log.error("    " + error);
+			}
+		}
+	}
+
+	protected GrowCustomFillList customFillLoad() {
+		GrowCustomFillList result = new GrowCustomFillList();
 
 		String filename = elementGet(ElementCustomFillFilename).trim();
 
@@ -226,22 +302,22 @@ public class CommonConfiguration extends ConfigurationBase {
 			if (file == null || !file.exists()) {
 				// cna't find file, log and continue
 				log.error("Custom fill file not found \"" + filename + "\".");
-				return;
+				return result;
 			}
 
 			// load file
 			try {
 				GrowCustomFillJson customFillJson = StorageJson.copyFromFile(file.getPath(), GrowCustomFillJson.class);
 
-				customFillList = customFillJson.list;
+				result = customFillJson.list;
 			} catch (StorageException e) {
 				// json load failed
 				log.error("Unable to load custom fill file \"" + filename + "\": " + e.getMessage());
-				return;
+				return new GrowCustomFillList();
 			}
 
 			// validate
-			ArrayList<String> errorList = customFillList.validateAndFix();
+			ArrayList<String> errorList = result.validateAndFix();
 			if (!errorList.isEmpty()) {
 				// some items failed, log it
 				log.error("Some custom fill items were invalid: ");
@@ -252,8 +328,74 @@ public class CommonConfiguration extends ConfigurationBase {
 			}
 
 			// convert block state text to actual states
-			customFillList.blockStateCacheDerive(log);
+			result.blockStateCacheDerive(log);
+
+			result.biomeCacheDerive(log);
 		}
+
+		return result;
+	}
+
+	public CommonConfigurationSnapshot commonSnapshot() {
+		return commonSnapshot;
+	}
+
+	@Override
+	protected void snapshotDerivePost() {
+		super.snapshotDerivePost();
+
+		commonSnapshot = CommonConfigurationSnapshot.of(snapshot, customFillList, overrideTableGet());
+	}
+
+	// previous table unless something it was built from has changed
+	protected Optional<CommonConfigurationOverrideTable> overrideTableGet() {
+		if (!isOverrideReady) {
+			return overrideTableDerive();
+		}
+
+		// every element value ends up in the table, not just the override list
+		if (overrideTableSnapshot == null || overrideTableCustomFillList != customFillList
+				|| isElementChange(overrideTableSnapshot, snapshot)) {
+			overrideTable = overrideTableDerive();
+			overrideTableSnapshot = snapshot;
+			overrideTableCustomFillList = customFillList;
+		}
+
+		return overrideTable;
+	}
+
+	protected boolean isElementChange(ConfigurationSnapshot snapshotOld, ConfigurationSnapshot snapshotNew) {
+		for (ConfigurationElement<?> element : elementList) {
+			if (ConfigurationElementChange.of(element, snapshotOld, snapshotNew) != null) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	protected Optional<CommonConfigurationOverrideTable> overrideTableDerive() {
+		overrideErrorList = new ArrayList<>();
+
+		if (!isOverrideReady) {
+			return Optional.empty();
+		}
+
+		ArrayList<ConfigurationOverride> overrideList = new ArrayList<>();
+
+		for (String text : snapshot.elementGet(ElementOverrideList)) {
+			if (text.trim().isEmpty()) {
+				continue;
+			}
+
+			try {
+				overrideList.add(ConfigurationOverride.parse(text, elementList));
+			} catch (ConfigurationException exception) {
+				overrideErrorList.add(exception.getMessage());
+			}
+		}
+
+		return CommonConfigurationOverrideTable.of(snapshot, customFillList, overrideList, overrideErrorList);
 	}
 
 	// need to manually sort elements in the file because it's alphabetical by
@@ -266,6 +408,7 @@ public class CommonConfiguration extends ConfigurationBase {
 		List<String> keyListVanilla = new ArrayList<>();
 		List<String> keyListCustom = new ArrayList<>();
 		List<String> keyListAnimal = new ArrayList<>();
+		List<String> keyListOverride = new ArrayList<>();
 
 		for (ConfigurationElement<?> element : elementList) {
 			if (element.category() == CategoryGeneral) {
@@ -283,12 +426,17 @@ public class CommonConfiguration extends ConfigurationBase {
 			if (element.category() == CategoryAnimal) {
 				keyListAnimal.add(element.key());
 			}
+
+			if (element.category() == CategoryOverride) {
+				keyListOverride.add(element.key());
+			}
 		}
 
 		forgeConfiguration.setCategoryPropertyOrder(CategoryGeneral, keyListGeneral);
 		forgeConfiguration.setCategoryPropertyOrder(CategoryVanilla, keyListVanilla);
 		forgeConfiguration.setCategoryPropertyOrder(CategoryCustom, keyListCustom);
 		forgeConfiguration.setCategoryPropertyOrder(CategoryAnimal, keyListAnimal);
+		forgeConfiguration.setCategoryPropertyOrder(CategoryOverride, keyListOverride);
 	}
 
 	public static final class Internal {
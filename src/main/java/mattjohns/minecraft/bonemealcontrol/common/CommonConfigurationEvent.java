@@ -0,0 +1,34 @@
+package mattjohns.minecraft.bonemealcontrol.common;
+
+import net.minecraftforge.fml.common.eventhandler.Event;
+
+import mattjohns.minecraft.bonemealcontrol.server.grow.GrowCustomFillList;
+
+/**
+ * Events fired by CommonConfiguration on top of the ConfigurationEvent ones.
+ */
+public class CommonConfigurationEvent extends Event {
+	public CommonConfiguration configuration;
+
+	public CommonConfigurationEvent(CommonConfiguration configuration) {
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Custom fill file was loaded or reloaded. Fired after the new list is
+	 * published. The lists are never the same object but might have the same
+	 * content. Neither list should be modified.
+	 */
+	public static class CustomFillChange extends CommonConfigurationEvent {
+		public GrowCustomFillList customFillListOld;
+		public GrowCustomFillList customFillListNew;
+
+		public CustomFillChange(CommonConfiguration configuration, GrowCustomFillList customFillListOld,
+				GrowCustomFillList customFillListNew) {
+			super(configuration);
+
+			this.customFillListOld = customFillListOld;
+			this.customFillListNew = customFillListNew;
+		}
+	}
+}
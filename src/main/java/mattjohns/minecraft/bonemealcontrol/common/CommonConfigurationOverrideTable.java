@@ -0,0 +1,226 @@
+package mattjohns.minecraft.bonemealcontrol.common;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import net.minecraft.world.biome.Biome;
+
+import mattjohns.common.immutable.Immutable;
+import mattjohns.minecraft.bonemealcontrol.server.grow.GrowCustomFillItem;
+import mattjohns.minecraft.bonemealcontrol.server.grow.GrowCustomFillList;
+import mattjohns.minecraft.common.storage.ConfigurationElement;
+import mattjohns.minecraft.common.storage.ConfigurationOverride;
+import mattjohns.minecraft.common.storage.ConfigurationSnapshot;
+import mattjohns.minecraft.common.system.SystemUtility;
+
+/**
+ * Configuration for every dimension and biome worked out ahead of time, so a
+ * bone meal use only has to index an array.
+ *
+ * Each dimension named by an override or custom fill item gets a slot, slot 0
+ * is every other dimension. A slot has one snapshot per biome id plus one
+ * more for ids outside the normal range. Combinations that end up with the
+ * same values share a snapshot.
+ */
+public class CommonConfigurationOverrideTable extends Immutable<CommonConfigurationOverrideTable> {
+	public static final String ScopeDimension = "dimension";
+	public static final String ScopeBiome = "biome";
+
+	public static final int SlotOther = 0;
+
+	protected static final int RowSize = GrowCustomFillItem.BiomeIdListSize + 1;
+
+	// only used when a world picks up a new snapshot, not per bone meal use
+	protected final Map<Integer, Integer> dimensionSlotMap;
+
+	// [slot * RowSize + biome id], last column is any other biome id
+	protected final CommonConfigurationSnapshot[] resolveList;
+
+	// per slot, true if any biome in that slot has a fluid target
+	protected final boolean[] slotIsFluidTargetList;
+
+	protected CommonConfigurationOverrideTable(Map<Integer, Integer> dimensionSlotMap,
+			CommonConfigurationSnapshot[] resolveList, boolean[] slotIsFluidTargetList) {
+		this.dimensionSlotMap = dimensionSlotMap;
+		this.resolveList = resolveList;
+		this.slotIsFluidTargetList = slotIsFluidTargetList;
+	}
+
+	/**
+	 * @param errorList
+	 * Overrides with an unknown scope, dimension or biome are skipped and a
+	 * description added here.
+	 *
+	 * @return Empty if nothing depends on dimension or biome.
+	 */
+	public static Optional<CommonConfigurationOverrideTable> of(ConfigurationSnapshot elementSnapshot,
+			GrowCustomFillList customFillList, List<ConfigurationOverride> overrideList, List<String> errorList) {
+		// work out what each override applies to
+		ArrayList<ConfigurationOverride> overrideDimensionList = new ArrayList<>();
+		ArrayList<Integer> overrideDimensionTargetList = new ArrayList<>();
+		ArrayList<ConfigurationOverride> overrideBiomeList = new ArrayList<>();
+		ArrayList<Integer> overrideBiomeTargetList = new ArrayList<>();
+
+		for (ConfigurationOverride override : overrideList) {
+			if (override.scope.equals(ScopeDimension)) {
+				try {
+					overrideDimensionTargetList.add(Integer.parseInt(override.target));
+					overrideDimensionList.add(override);
+				} catch (NumberFormatException exception) {
+					errorList.add("Override dimension \"" + override.target + "\" is not a number.");
+				}
+			} else if (override.scope.equals(ScopeBiome)) {
+				Biome biome = SystemUtility.biomeGet(override.target);
+				if (biome == null) {
+					errorList.add("Override biome \"" + override.target + "\" not found.");
+					continue;
+				}
+
+				overrideBiomeTargetList.add(Biome.getIdForBiome(biome));
+				overrideBiomeList.add(override);
+			} else {
+				errorList.add("Override scope \"" + override.scope + "\" should be \"" + ScopeDimension + "\" or \""
+						+ ScopeBiome + "\".");
+			}
+		}
+
+		// slot for each dimension that's mentioned anywhere
+		HashMap<Integer, Integer> dimensionSlotMap = new HashMap<>();
+		ArrayList<Integer> slotDimensionList = new ArrayList<>();
+		slotDimensionList.add(null);
+
+		boolean isBiomeLimited = !overrideBiomeList.isEmpty();
+
+		for (int dimension : overrideDimensionTargetList) {
+			slotAdd(dimensionSlotMap, slotDimensionList, dimension);
+		}
+
+		for (GrowCustomFillItem item : customFillList) {
+			for (int dimension : item.dimensionList) {
+				slotAdd(dimensionSlotMap, slotDimensionList, dimension);
+			}
+
+			if (item.isBiomeLimited()) {
+				isBiomeLimited = true;
+			}
+		}
+
+		if (slotDimensionList.size() == 1 && !isBiomeLimited) {
+			// same everywhere
+			return Optional.empty();
+		}
+
+		int slotListSize = slotDimensionList.size();
+
+		CommonConfigurationSnapshot[] resolveList = new CommonConfigurationSnapshot[slotListSize * RowSize];
+		boolean[] slotIsFluidTargetList = new boolean[slotListSize];
+
+		// key has a bit for each override and custom fill item that applies
+		HashMap<BitSet, CommonConfigurationSnapshot> shareMap = new HashMap<>();
+		int itemBitOffset = overrideDimensionList.size() + overrideBiomeList.size();
+
+		for (int slot = 0; slot < slotListSize; slot++) {
+			Integer dimension = slotDimensionList.get(slot);
+
+			for (int column = 0; column < RowSize; column++) {
+				int biomeId = column < GrowCustomFillItem.BiomeIdListSize ? column : -1;
+
+				BitSet key = new BitSet();
+
+				for (int i = 0; i < overrideDimensionList.size(); i++) {
+					if (overrideDimensionTargetList.get(i).equals(dimension)) {
+						key.set(i);
+					}
+				}
+
+				for (int i = 0; i < overrideBiomeList.size(); i++) {
+					if (overrideBiomeTargetList.get(i) == biomeId) {
+						key.set(overrideDimensionList.size() + i);
+					}
+				}
+
+				for (int i = 0; i < customFillList.size(); i++) {
+					GrowCustomFillItem item = customFillList.get(i);
+
+					boolean isDimensionMatch = dimension == null ? !item.isDimensionLimited()
+							: item.isDimensionMatch(dimension);
+
+					if (isDimensionMatch && item.isBiomeMatch(biomeId)) {
+						key.set(itemBitOffset + i);
+					}
+				}
+
+				CommonConfigurationSnapshot resolve = shareMap.get(key);
+
+				if (resolve == null) {
+					resolve = resolveCreate(elementSnapshot, customFillList, overrideDimensionList,
+							overrideBiomeList, itemBitOffset, key);
+
+					shareMap.put(key, resolve);
+				}
+
+				resolveList[slot * RowSize + column] = resolve;
+
+				if (resolve.customFillList().isFluidTarget()) {
+					slotIsFluidTargetList[slot] = true;
+				}
+			}
+		}
+
+		return Optional.of(new CommonConfigurationOverrideTable(Collections.unmodifiableMap(dimensionSlotMap),
+				resolveList, slotIsFluidTargetList));
+	}
+
+	protected static void slotAdd(HashMap<Integer, Integer> dimensionSlotMap, ArrayList<Integer> slotDimensionList,
+			int dimension) {
+		if (!dimensionSlotMap.containsKey(dimension)) {
+			dimensionSlotMap.put(dimension, slotDimensionList.size());
+			slotDimensionList.add(dimension);
+		}
+	}
+
+	protected static CommonConfigurationSnapshot resolveCreate(ConfigurationSnapshot elementSnapshot,
+			GrowCustomFillList customFillList, List<ConfigurationOverride> overrideDimensionList,
+			List<ConfigurationOverride> overrideBiomeList, int itemBitOffset, BitSet key) {
+		HashMap<ConfigurationElement<?>, Object> valueMap = new HashMap<>();
+
+		// biome goes last so it wins over dimension
+		for (int i = 0; i < overrideDimensionList.size(); i++) {
+			if (key.get(i)) {
+				valueMap.put(overrideDimensionList.get(i).element, overrideDimensionList.get(i).value);
+			}
+		}
+
+		for (int i = 0; i < overrideBiomeList.size(); i++) {
+			if (key.get(overrideDimensionList.size() + i)) {
+				valueMap.put(overrideBiomeList.get(i).element, overrideBiomeList.get(i).value);
+			}
+		}
+
+		GrowCustomFillList customFillListResolve = customFillList
+				.filter(index -> key.get(itemBitOffset + index));
+
+		return CommonConfigurationSnapshot.of(elementSnapshot.with(valueMap), customFillListResolve);
+	}
+
+	public int dimensionSlotGet(int dimension) {
+		Integer result = dimensionSlotMap.get(dimension);
+
+		return result == null ? SlotOther : result;
+	}
+
+	public CommonConfigurationSnapshot resolve(int slot, int biomeId) {
+		int column = biomeId >= 0 && biomeId < GrowCustomFillItem.BiomeIdListSize ? biomeId : RowSize - 1;
+
+		return resolveList[slot * RowSize + column];
+	}
+
+	public boolean isFluidTarget(int slot) {
+		return slotIsFluidTargetList[slot];
+	}
+}
@@ -0,0 +1,81 @@
+package mattjohns.minecraft.bonemealcontrol.common;
+
+import java.util.Optional;
+
+import mattjohns.common.immutable.Immutable;
+import mattjohns.minecraft.bonemealcontrol.server.grow.GrowCustomFillList;
+import mattjohns.minecraft.common.storage.ConfigurationElement;
+import mattjohns.minecraft.common.storage.ConfigurationSnapshot;
+
+/**
+ * Element values plus the custom fill list, published together so readers
+ * never see one from before a reload and the other from after.
+ *
+ * The custom fill list must not be modified once it's in a snapshot.
+ */
+public class CommonConfigurationSnapshot extends Immutable<CommonConfigurationSnapshot> {
+	protected final ConfigurationSnapshot elementSnapshot;
+	protected final GrowCustomFillList customFillList;
+
+	// empty when the values are the same in every dimension and biome
+	protected final Optional<CommonConfigurationOverrideTable> overrideTable;
+
+	protected CommonConfigurationSnapshot(ConfigurationSnapshot elementSnapshot, GrowCustomFillList customFillList,
+			Optional<CommonConfigurationOverrideTable> overrideTable) {
+		this.elementSnapshot = elementSnapshot;
+		this.customFillList = customFillList;
+		this.overrideTable = overrideTable;
+
+		assert this.elementSnapshot != null;
+		assert this.customFillList != null;
+		assert this.overrideTable != null;
+	}
+
+	public static CommonConfigurationSnapshot of(ConfigurationSnapshot elementSnapshot,
+			GrowCustomFillList customFillList) {
+		return new CommonConfigurationSnapshot(elementSnapshot, customFillList, Optional.empty());
+	}
+
+	public static CommonConfigurationSnapshot of(ConfigurationSnapshot elementSnapshot,
+			GrowCustomFillList customFillList, Optional<CommonConfigurationOverrideTable> overrideTable) {
+		return new CommonConfigurationSnapshot(elementSnapshot, customFillList, overrideTable);
+	}
+
+	public <T> T elementGet(ConfigurationElement<T> element) {
+		return elementSnapshot.elementGet(element);
+	}
+
+	public GrowCustomFillList customFillList() {
+		return customFillList;
+	}
+
+	public boolean isOverride() {
+		return overrideTable.isPresent();
+	}
+
+	public int dimensionSlotGet(int dimension) {
+		if (!overrideTable.isPresent()) {
+			return CommonConfigurationOverrideTable.SlotOther;
+		}
+
+		return overrideTable.get().dimensionSlotGet(dimension);
+	}
+
+	// values for a biome within a dimension slot, this snapshot if there are no
+	// overrides
+	public CommonConfigurationSnapshot resolve(int dimensionSlot, int biomeId) {
+		if (!overrideTable.isPresent()) {
+			return this;
+		}
+
+		return overrideTable.get().resolve(dimensionSlot, biomeId);
+	}
+
+	public boolean isFluidTarget(int dimensionSlot) {
+		if (!overrideTable.isPresent()) {
+			return customFillList.isFluidTarget();
+		}
+
+		return overrideTable.get().isFluidTarget(dimensionSlot);
+	}
+}
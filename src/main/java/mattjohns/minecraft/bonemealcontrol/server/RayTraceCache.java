@@ -0,0 +1,52 @@
+package mattjohns.minecraft.bonemealcontrol.server;
+
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.UUID;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.util.math.RayTraceResult;
+import net.minecraft.world.World;
+
+import mattjohns.minecraft.common.system.SystemUtility;
+
+/**
+ * Fluid ray trace for each player, only valid during the server tick it was
+ * traced in.
+ *
+ * A single right-click raises an item event for the main hand and then the off
+ * hand in the same tick, so they share the one trace.
+ */
+public class RayTraceCache {
+	protected int tick = -1;
+
+	// empty if the ray trace failed
+	protected HashMap<UUID, Optional<RayTraceResult>> traceMap = new HashMap<>();
+
+	// null if the ray trace failed, same as SystemUtility.rayTrace()
+	public RayTraceResult get(World world, EntityPlayer player) {
+		tickUpdate(world);
+
+		UUID playerId = player.getUniqueID();
+
+		Optional<RayTraceResult> trace = traceMap.get(playerId);
+		if (trace == null) {
+			// not traced yet this tick
+			trace = Optional.ofNullable(SystemUtility.rayTrace(world, player, true));
+
+			traceMap.put(playerId, trace);
+		}
+
+		return trace.orElse(null);
+	}
+
+	// throw away everything from previous ticks
+	protected void tickUpdate(World world) {
+		int tickCurrent = world.getMinecraftServer().getTickCounter();
+
+		if (tickCurrent != tick) {
+			tick = tickCurrent;
+			traceMap.clear();
+		}
+	}
+}
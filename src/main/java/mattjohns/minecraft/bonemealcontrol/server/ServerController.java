@@ -1,5 +1,7 @@
 package mattjohns.minecraft.bonemealcontrol.server;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.EntityPlayer;
@@ -16,22 +18,32 @@ import net.minecraft.world.World;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.entity.player.BonemealEvent;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent;
+import net.minecraftforge.event.world.ChunkDataEvent;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.fml.common.event.FMLInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLPostInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLPreInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLServerStartingEvent;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.fml.common.eventhandler.Event.Result;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
 
 import mattjohns.minecraft.common.log.Log;
 import mattjohns.minecraft.common.network.NetworkChannel;
-import mattjohns.minecraft.common.system.SystemUtility;
+import mattjohns.minecraft.common.storage.ConfigurationElementChange;
+import mattjohns.minecraft.common.storage.ConfigurationEvent;
 import mattjohns.minecraft.bonemealcontrol.common.CommonConfiguration;
+import mattjohns.minecraft.bonemealcontrol.common.CommonConfigurationEvent;
 import mattjohns.minecraft.bonemealcontrol.common.ProgramEventReceiver;
 import mattjohns.minecraft.bonemealcontrol.server.consolecommand.ConsoleCommandConfigurationReload;
 import mattjohns.minecraft.bonemealcontrol.server.consolecommand.ConsoleCommandEvent;
+import mattjohns.minecraft.bonemealcontrol.server.consolecommand.ConsoleCommandRegionFill;
+import mattjohns.minecraft.bonemealcontrol.server.consolecommand.ConsoleCommandTrace;
 import mattjohns.minecraft.bonemealcontrol.server.grow.GrowController;
 import mattjohns.minecraft.bonemealcontrol.server.grow.GrowResult;
+import mattjohns.minecraft.bonemealcontrol.server.regionfill.RegionFillController;
+import mattjohns.minecraft.bonemealcontrol.server.trace.TraceController;
 
 // central controller for server
 public class ServerController implements ProgramEventReceiver {
@@ -39,15 +51,48 @@ public class ServerController implements ProgramEventReceiver {
 	protected CommonConfiguration configuration;
 	protected NetworkChannel network;
 
-	protected GrowController grow;
+	// Per dimension so worlds ticked on different threads never share state.
+	// Only the map itself is touched by more than one thread.
+	protected ConcurrentHashMap<Integer, GrowController> growMap = new ConcurrentHashMap<>();
+	protected ConcurrentHashMap<Integer, RayTraceCache> rayTraceCacheMap = new ConcurrentHashMap<>();
+
+	// background custom fill over large areas
+	protected RegionFillController regionFill;
+
+	// bone meal use recording and replay for load testing
+	protected TraceController trace;
 
 	public ServerController(Log log, CommonConfiguration configuration, NetworkChannel network) {
 		this.log = log;
 		this.configuration = configuration;
 		this.network = network;
 
-		// all bone meal code is in here
-		this.grow = new GrowController(configuration);
+		this.regionFill = new RegionFillController(log, configuration, this);
+		this.trace = new TraceController(log, this);
+	}
+
+	// all bone meal code is in here
+	public GrowController growGet(World world) {
+		int dimension = world.provider.getDimension();
+
+		GrowController result = growMap.get(dimension);
+		if (result == null) {
+			// first bone meal in this world
+			result = growMap.computeIfAbsent(dimension, key -> new GrowController(configuration, world));
+		}
+
+		return result;
+	}
+
+	protected RayTraceCache rayTraceCacheGet(World world) {
+		int dimension = world.provider.getDimension();
+
+		RayTraceCache result = rayTraceCacheMap.get(dimension);
+		if (result == null) {
+			result = rayTraceCacheMap.computeIfAbsent(dimension, key -> new RayTraceCache());
+		}
+
+		return result;
 	}
 
 	@Override
@@ -76,10 +121,15 @@ public class ServerController implements ProgramEventReceiver {
 
 	public void onGameServerStart(FMLServerStartingEvent event) {
 		consoleCommandRegister(event);
+
+		regionFill.serverStart();
+		trace.serverStart();
 	}
 
 	protected void consoleCommandRegister(FMLServerStartingEvent event) {
 		event.registerServerCommand(new ConsoleCommandConfigurationReload());
+		event.registerServerCommand(new ConsoleCommandRegionFill());
+		event.registerServerCommand(new ConsoleCommandTrace());
 	}
 
 	public void configurationReload(EntityPlayerMP player) {
@@ -99,6 +149,136 @@ public class ServerController implements ProgramEventReceiver {
 		configurationReload(event.player);
 	}
 
+	@SubscribeEvent
+	public void onConsoleCommandRegionFillList(ConsoleCommandEvent.RegionFillList event) {
+		regionFill.list(event.player);
+	}
+
+	@SubscribeEvent
+	public void onConsoleCommandRegionFillStart(ConsoleCommandEvent.RegionFillStart event) {
+		regionFill.start(event.player, event.ruleIndex, event.x1, event.z1, event.x2, event.z2);
+	}
+
+	@SubscribeEvent
+	public void onConsoleCommandRegionFillResume(ConsoleCommandEvent.RegionFillResume event) {
+		regionFill.resume(event.player);
+	}
+
+	@SubscribeEvent
+	public void onConsoleCommandRegionFillStop(ConsoleCommandEvent.RegionFillStop event) {
+		regionFill.stop(event.player);
+	}
+
+	@SubscribeEvent
+	public void onConsoleCommandRegionFillStatus(ConsoleCommandEvent.RegionFillStatus event) {
+		regionFill.status(event.player);
+	}
+
+	@SubscribeEvent
+	public void onConsoleCommandTraceStart(ConsoleCommandEvent.TraceStart event) {
+		trace.start(event.player, event.name);
+	}
+
+	@SubscribeEvent
+	public void onConsoleCommandTraceStop(ConsoleCommandEvent.TraceStop event) {
+		trace.stop(event.player);
+	}
+
+	@SubscribeEvent
+	public void onConsoleCommandTraceStatus(ConsoleCommandEvent.TraceStatus event) {
+		trace.status(event.player);
+	}
+
+	@SubscribeEvent
+	public void onConsoleCommandTraceReplay(ConsoleCommandEvent.TraceReplay event) {
+		trace.replay(event.player, event.name, event.seed, event.isConfirm);
+	}
+
+	@SubscribeEvent
+	public void onServerTick(TickEvent.ServerTickEvent event) {
+		if (event.phase != TickEvent.Phase.END) {
+			return;
+		}
+
+		regionFill.tick();
+		trace.tick();
+	}
+
+	@SubscribeEvent
+	public void onWorldUnload(WorldEvent.Unload event) {
+		World world = event.getWorld();
+		if (world.isRemote) {
+			return;
+		}
+
+		// dimension might load again later as a new world object
+		int dimension = world.provider.getDimension();
+
+		growMap.remove(dimension);
+		rayTraceCacheMap.remove(dimension);
+	}
+
+	@SubscribeEvent
+	public void onChunkUnload(ChunkEvent.Unload event) {
+		World world = event.getWorld();
+		if (world.isRemote) {
+			return;
+		}
+
+		// don't create a controller just for this
+		GrowController grow = growMap.get(world.provider.getDimension());
+		if (grow != null) {
+			grow.chunkUnload(event.getChunk());
+		}
+	}
+
+	@SubscribeEvent
+	public void onChunkSave(ChunkDataEvent.Save event) {
+		World world = event.getWorld();
+		if (world.isRemote) {
+			return;
+		}
+
+		// section summaries are only trusted while the chunk has no unsaved changes,
+		// which a save makes true again
+		GrowController grow = growMap.get(world.provider.getDimension());
+		if (grow != null) {
+			grow.chunkSave(event.getChunk());
+		}
+	}
+
+	@SubscribeEvent
+	public void onWorldSave(WorldEvent.Save event) {
+		World world = event.getWorld();
+		if (world.isRemote) {
+			return;
+		}
+
+		// files are for the whole save so only write them once
+		if (world.provider.getDimension() != 0) {
+			return;
+		}
+
+		regionFill.save();
+		trace.save();
+	}
+
+	@SubscribeEvent
+	public void onConfigurationChange(ConfigurationEvent.Change event) {
+		if (event.configuration != configuration) {
+			return;
+		}
+
+		for (ConfigurationElementChange<?> change : event.changeList) {
+			log.information("Configuration " + change.element.key() + " changed.");
+		}
+	}
+
+	@SubscribeEvent
+	public void onCustomFillChange(CommonConfigurationEvent.CustomFillChange event) {
+		regionFill.customFillChange();
+	}
+
 	// handle fluids separately (called before normal bone meal use event)
 	@SubscribeEvent
 	public void onRightClickItem(PlayerInteractEvent.RightClickItem event) {
@@ -111,12 +291,20 @@ public class ServerController implements ProgramEventReceiver {
 		EnumHand hand = event.getHand();
 		ItemStack itemStack = event.getItemStack();
 
+		GrowController grow = growGet(world);
+
 		if (!grow.isBonemeal(itemStack)) {
 			return;
 		}
 
+		// Fast reject. Vanilla already handles every non-fluid target so the
+		// fluid ray trace is only needed when a custom fill targets a fluid.
+		if (!grow.isFluidTarget(world)) {
+			return;
+		}
+
 		// need to ray trace for fluid block
-		RayTraceResult trace = SystemUtility.rayTrace(world, player, true);
+		RayTraceResult trace = rayTraceCacheGet(world).get(world, player);
 
 		// rayTrace() can return null if the internal vectors become infinite.
 		//
@@ -170,8 +358,10 @@ public class ServerController implements ProgramEventReceiver {
 		BlockPos targetPosition = event.getPos();
 		IBlockState targetBlockState = event.getBlock();
 
+		trace.recordBlock(world, targetPosition, targetBlockState, event.getEntityPlayer());
+
 		// attempt to grow target
-		GrowResult growResult = grow.boneMealUse(world, targetPosition, targetBlockState);
+		GrowResult growResult = growGet(world).boneMealUse(world, targetPosition, targetBlockState);
 
 		// vanilla and custom bone meal targets need to be handled in different
 		// ways
@@ -183,7 +373,7 @@ public class ServerController implements ProgramEventReceiver {
 				event.setCanceled(true);
 
 				// notify user
-				if (configuration.elementGet(CommonConfiguration.ElementShowDisableMessageVanilla)) {
+				if (configuration.commonSnapshot().elementGet(CommonConfiguration.ElementShowDisableMessageVanilla)) {
 					EntityPlayer player = event.getEntityPlayer();
 					log.informationConsole(player, "Bonemeal is disabled for this block.");
 				}
@@ -208,6 +398,8 @@ public class ServerController implements ProgramEventReceiver {
 			return;
 		}
 
+		GrowController grow = growGet(world);
+
 		// ensure holding bone meal
 		ItemStack itemStack = event.getItemStack();
 		if (!grow.isBonemeal(itemStack)) {
@@ -216,6 +408,8 @@ public class ServerController implements ProgramEventReceiver {
 
 		// grow entity
 		Entity entity = event.getTarget();
+
+		trace.recordEntity(world, entity, event.getEntityPlayer());
 		if (!grow.boneMealUseEntity(world, entity)) {
 			return;
 		}
@@ -17,4 +17,86 @@ public class ConsoleCommandEvent extends Event {
 			super(player);
 		}
 	}
-}
\ No newline at end of file
+
+	public static class RegionFillList extends ConsoleCommandEvent {
+		public RegionFillList(EntityPlayerMP player) {
+			super(player);
+		}
+	}
+
+	public static class RegionFillStart extends ConsoleCommandEvent {
+		public int ruleIndex;
+
+		// block coordinates, inclusive
+		public int x1;
+		public int z1;
+		public int x2;
+		public int z2;
+
+		public RegionFillStart(EntityPlayerMP player, int ruleIndex, int x1, int z1, int x2, int z2) {
+			super(player);
+
+			this.ruleIndex = ruleIndex;
+			this.x1 = x1;
+			this.z1 = z1;
+			this.x2 = x2;
+			this.z2 = z2;
+		}
+	}
+
+	public static class RegionFillResume extends ConsoleCommandEvent {
+		public RegionFillResume(EntityPlayerMP player) {
+			super(player);
+		}
+	}
+
+	public static class RegionFillStop extends ConsoleCommandEvent {
+		public RegionFillStop(EntityPlayerMP player) {
+			super(player);
+		}
+	}
+
+	public static class RegionFillStatus extends ConsoleCommandEvent {
+		public RegionFillStatus(EntityPlayerMP player) {
+			super(player);
+		}
+	}
+
+	public static class TraceStart extends ConsoleCommandEvent {
+		public String name;
+
+		public TraceStart(EntityPlayerMP player, String name) {
+			super(player);
+
+			this.name = name;
+		}
+	}
+
+	public static class TraceStop extends ConsoleCommandEvent {
+		public TraceStop(EntityPlayerMP player) {
+			super(player);
+		}
+	}
+
+	public static class TraceStatus extends ConsoleCommandEvent {
+		public TraceStatus(EntityPlayerMP player) {
+			super(player);
+		}
+	}
+
+	public static class TraceReplay extends ConsoleCommandEvent {
+		public String name;
+		public long seed;
+
+		// player agreed to blocks in the live world being overwritten
+		public boolean isConfirm;
+
+		public TraceReplay(EntityPlayerMP player, String name, long seed, boolean isConfirm) {
+			super(player);
+
+			this.name = name;
+			this.seed = seed;
+			this.isConfirm = isConfirm;
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package mattjohns.minecraft.bonemealcontrol.server.consolecommand;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.command.WrongUsageException;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.common.MinecraftForge;
+
+// run a custom fill rule over a whole region in the background
+public class ConsoleCommandRegionFill extends CommandBase {
+	@Override
+	public String getName() {
+		return "boneMealControlRegionFill";
+	}
+
+	@Override
+	public String getUsage(ICommandSender sender) {
+		return "/boneMealControlRegionFill <list | start <rule> <x1> <z1> <x2> <z2> | stop | resume | status>";
+	}
+
+	@Override
+	public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException {
+		if (!(sender instanceof EntityPlayerMP)) {
+			return;
+		}
+
+		EntityPlayerMP player = (EntityPlayerMP) sender;
+
+		if (args.length < 1) {
+			throw new WrongUsageException(getUsage(sender));
+		}
+
+		switch (args[0]) {
+		case "list": {
+			MinecraftForge.EVENT_BUS.post(new ConsoleCommandEvent.RegionFillList(player));
+			break;
+		}
+		case "start": {
+			if (args.length != 6) {
+				throw new WrongUsageException(getUsage(sender));
+			}
+
+			int ruleIndex = parseInt(args[1], 0);
+			int x1 = parseInt(args[2]);
+			int z1 = parseInt(args[3]);
+			int x2 = parseInt(args[4]);
+			int z2 = parseInt(args[5]);
+
+			MinecraftForge.EVENT_BUS.post(new ConsoleCommandEvent.RegionFillStart(player, ruleIndex, x1, z1, x2, z2));
+			break;
+		}
+		case "stop": {
+			MinecraftForge.EVENT_BUS.post(new ConsoleCommandEvent.RegionFillStop(player));
+			break;
+		}
+		case "resume": {
+			MinecraftForge.EVENT_BUS.post(new ConsoleCommandEvent.RegionFillResume(player));
+			break;
+		}
+		case "status": {
+			MinecraftForge.EVENT_BUS.post(new ConsoleCommandEvent.RegionFillStatus(player));
+			break;
+		}
+		default: {
+			throw new WrongUsageException(getUsage(sender));
+		}
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package mattjohns.minecraft.bonemealcontrol.server.consolecommand;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.command.WrongUsageException;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.common.MinecraftForge;
+
+// record bone meal use to a file and replay it for load testing
+public class ConsoleCommandTrace extends CommandBase {
+	@Override
+	public String getName() {
+		return "boneMealControlTrace";
+	}
+
+	@Override
+	public String getUsage(ICommandSender sender) {
+		return "/boneMealControlTrace <start <name> | stop | status | replay <name> [seed] [confirm]>";
+	}
+
+	@Override
+	public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException {
+		if (!(sender instanceof EntityPlayerMP)) {
+			return;
+		}
+
+		EntityPlayerMP player = (EntityPlayerMP) sender;
+
+		if (args.length < 1) {
+			throw new WrongUsageException(getUsage(sender));
+		}
+
+		switch (args[0]) {
+		case "start": {
+			if (args.length != 2) {
+				throw new WrongUsageException(getUsage(sender));
+			}
+
+			MinecraftForge.EVENT_BUS.post(new ConsoleCommandEvent.TraceStart(player, args[1]));
+			break;
+		}
+		case "stop": {
+			MinecraftForge.EVENT_BUS.post(new ConsoleCommandEvent.TraceStop(player));
+			break;
+		}
+		case "status": {
+			MinecraftForge.EVENT_BUS.post(new ConsoleCommandEvent.TraceStatus(player));
+			break;
+		}
+		case "replay": {
+			if (args.length < 2 || args.length > 4) {
+				throw new WrongUsageException(getUsage(sender));
+			}
+
+			int argListSize = args.length;
+
+			boolean isConfirm = args[argListSize - 1].equals("confirm");
+			if (isConfirm) {
+				argListSize--;
+			}
+
+			long seed = 0;
+			if (argListSize == 3) {
+				seed = parseLong(args[2]);
+			} else if (argListSize != 2) {
+				throw new WrongUsageException(getUsage(sender));
+			}
+
+			MinecraftForge.EVENT_BUS.post(new ConsoleCommandEvent.TraceReplay(player, args[1], seed, isConfirm));
+			break;
+		}
+		default: {
+			throw new WrongUsageException(getUsage(sender));
+		}
+		}
+	}
+}
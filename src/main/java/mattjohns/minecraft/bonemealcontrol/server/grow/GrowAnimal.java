@@ -3,14 +3,13 @@ package mattjohns.minecraft.bonemealcontrol.server.grow;
 import net.minecraft.entity.passive.EntityAnimal;
 import net.minecraft.world.World;
 
-import mattjohns.common.math.General;
 import mattjohns.minecraft.bonemealcontrol.common.CommonConfiguration;
 
 public class GrowAnimal {
-	protected CommonConfiguration configuration;
+	protected GrowContext context;
 
-	public GrowAnimal(CommonConfiguration configuration) {
-		this.configuration = configuration;
+	public GrowAnimal(GrowContext context) {
+		this.context = context;
 	}
 
 	public boolean grow(World world, EntityAnimal animal) {
@@ -27,10 +26,10 @@ public class GrowAnimal {
 	}
 
 	private int ageIncrementDerive() {
-		int fixed = configuration.elementGet(CommonConfiguration.ElementAnimalAgeIncrement);
-		int randomMaximum = configuration.elementGet(CommonConfiguration.ElementAnimalAgeRandomIncrement);
+		int fixed = context.elementGet(CommonConfiguration.ElementAnimalAgeIncrement);
+		int randomMaximum = context.elementGet(CommonConfiguration.ElementAnimalAgeRandomIncrement);
 
-		int randomAmount = General.randomGetIntegerExclusive(randomMaximum + 1);
+		int randomAmount = context.randomGetIntegerExclusive(randomMaximum + 1);
 
 		int incrementMaximum = CommonConfiguration.ElementAnimalAgeIncrement.maximumGet();
 
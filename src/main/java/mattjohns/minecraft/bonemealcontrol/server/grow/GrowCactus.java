@@ -8,8 +8,8 @@ import net.minecraft.block.properties.PropertyInteger;
 import net.minecraft.init.Blocks;
 
 public class GrowCactus extends GrowTower {
-	public GrowCactus(CommonConfiguration configuration) {
-		super(configuration);
+	public GrowCactus(GrowContext context) {
+		super(context);
 	}
 
 	@Override
@@ -1,6 +1,5 @@
 package mattjohns.minecraft.bonemealcontrol.server.grow;
 
-import mattjohns.common.math.General;
 import mattjohns.minecraft.bonemealcontrol.common.CommonConfiguration;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
@@ -10,10 +9,10 @@ import net.minecraft.world.World;
 // Chorus flower doesn't seem to do anything when multiple update ticks 
 // are performed in a row.  So the user only has the option of 'chance' for this one.
 public class GrowChorusFlower {
-	protected CommonConfiguration configuration;
+	protected GrowContext context;
 
-	public GrowChorusFlower(CommonConfiguration configuration) {
-		this.configuration = configuration;
+	public GrowChorusFlower(GrowContext context) {
+		this.context = context;
 	}
 
 	public boolean grow(World world, BlockPos position) {
@@ -21,9 +20,9 @@ public class GrowChorusFlower {
 
 		assert blockState.getBlock().equals(Blocks.CHORUS_FLOWER);
 
-		double chance = configuration.elementGet(CommonConfiguration.ElementChorusFlowerUpdateChance);
+		double chance = context.elementGet(CommonConfiguration.ElementChorusFlowerUpdateChance);
 
-		if (General.randomChance(chance)) {
+		if (context.randomChance(chance)) {
 			blockState.getBlock().updateTick(world, position, blockState, world.rand);
 		} else {
 			// chance didn't happen but return true to ensure the bonemeal is
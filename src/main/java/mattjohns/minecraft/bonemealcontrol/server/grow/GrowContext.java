@@ -0,0 +1,144 @@
+package mattjohns.minecraft.bonemealcontrol.server.grow;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.biome.Biome;
+
+import mattjohns.common.math.General;
+import mattjohns.minecraft.bonemealcontrol.common.CommonConfiguration;
+import mattjohns.minecraft.bonemealcontrol.common.CommonConfigurationSnapshot;
+import mattjohns.minecraft.common.chunk.ChunkSectionBlockIndex;
+import mattjohns.minecraft.common.storage.ConfigurationElement;
+import mattjohns.minecraft.common.system.SystemUtility;
+
+/**
+ * State for growing things in a single world.
+ *
+ * Each world gets its own context so nothing in here is shared between
+ * threads, even on servers that tick dimensions in parallel. The only shared
+ * data is the configuration snapshot and that never changes after it's
+ * published.
+ */
+public class GrowContext {
+	// about 0.5 KB each
+	protected static final int SectionIndexListSizeMaximum = 512;
+
+	protected CommonConfiguration configuration;
+
+	protected int dimension;
+
+	// latest published by the configuration, see snapshotRefresh()
+	protected CommonConfigurationSnapshot snapshotPublish;
+
+	// this world's slot in the override table, only changes with the snapshot
+	protected int dimensionSlot;
+
+	// values for the current bone meal use, see positionResolve()
+	protected CommonConfigurationSnapshot snapshot;
+
+	protected Random random = new Random();
+
+	// reused for block reads that don't need to keep the position
+	protected BlockPos.MutableBlockPos positionScratch = new BlockPos.MutableBlockPos();
+
+	// custom fill radius to offsets, radius is always one of the few values
+	// in the custom fill list
+	protected HashMap<Double, ArrayList<BlockPos>> radiusOffsetMap = new HashMap<>();
+
+	// which blocks each chunk section contains, lets custom fill skip sections
+	// without the target
+	protected ChunkSectionBlockIndex sectionIndex = ChunkSectionBlockIndex.of(SectionIndexListSizeMaximum);
+
+	public GrowContext(CommonConfiguration configuration, int dimension) {
+		this.configuration = configuration;
+		this.dimension = dimension;
+
+		snapshotRefresh();
+	}
+
+	// Pick up the latest configuration. Called once at the start of each bone
+	// meal use so a reload part way through can't mix old and new values.
+	public void snapshotRefresh() {
+		CommonConfigurationSnapshot snapshotLatest = configuration.commonSnapshot();
+
+		if (snapshotLatest != snapshotPublish) {
+			if (snapshotPublish != null && snapshotLatest.customFillList() != snapshotPublish.customFillList()) {
+				// new custom fill list might have different radius values
+				radiusOffsetMap.clear();
+			}
+
+			snapshotPublish = snapshotLatest;
+			dimensionSlot = snapshotPublish.dimensionSlotGet(dimension);
+		}
+
+		snapshot = snapshotPublish;
+	}
+
+	// Narrow the values down to the biome at a position. Call after
+	// snapshotRefresh() when overrides or custom fill items might depend on
+	// where the bone meal is used.
+	public void positionResolve(World world, BlockPos position) {
+		if (!snapshotPublish.isOverride()) {
+			return;
+		}
+
+		int biomeId = Biome.getIdForBiome(world.getBiome(position));
+
+		snapshot = snapshotPublish.resolve(dimensionSlot, biomeId);
+	}
+
+	// whether any custom fill item for this world targets a fluid
+	public boolean isFluidTarget() {
+		return snapshotPublish.isFluidTarget(dimensionSlot);
+	}
+
+	public CommonConfigurationSnapshot snapshot() {
+		return snapshot;
+	}
+
+	public <T> T elementGet(ConfigurationElement<T> element) {
+		return snapshot.elementGet(element);
+	}
+
+	public Random random() {
+		return random;
+	}
+
+	// for repeatable results, e.g. replaying a trace
+	public void randomSeed(long seed) {
+		random.setSeed(seed);
+	}
+
+	public int randomGetIntegerExclusive(int maximumSize) {
+		return General.randomGetIntegerExclusive(random, maximumSize);
+	}
+
+	public boolean randomChance(double chance) {
+		return General.randomChance(random, chance);
+	}
+
+	public BlockPos.MutableBlockPos positionScratch() {
+		return positionScratch;
+	}
+
+	public ChunkSectionBlockIndex sectionIndex() {
+		return sectionIndex;
+	}
+
+	// don't modify the result
+	public ArrayList<BlockPos> radiusGetBlockOffsetList(double radius) {
+		ArrayList<BlockPos> result = radiusOffsetMap.get(radius);
+
+		if (result == null) {
+			result = SystemUtility.radiusGetBlockOffsetList(radius);
+
+			radiusOffsetMap.put(radius, result);
+		}
+
+		return result;
+	}
+}
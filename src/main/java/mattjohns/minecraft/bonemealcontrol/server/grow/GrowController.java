@@ -18,12 +18,15 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
 
 import mattjohns.minecraft.bonemealcontrol.common.CommonConfiguration;
 
-// central controller for bone meal, both custom and vanilla targets 
+// Central controller for bone meal, both custom and vanilla targets.
+//
+// One per world, only use it from the thread that ticks that world.
 public class GrowController {
-	protected CommonConfiguration configuration;
+	protected GrowContext context;
 
 	// logic for custom targets
 	protected GrowCactus cactus;
@@ -37,22 +40,25 @@ public class GrowController {
 	protected GrowAnimal animal;
 	protected GrowJungle jungle;
 
-	public GrowController(CommonConfiguration configuration) {
-		this.configuration = configuration;
-
-		cactus = new GrowCactus(configuration);
-		reed = new GrowReed(configuration);
-		wart = new GrowWart(configuration);
-		melon = new GrowStemBlock(configuration);
-		customFill = new GrowCustomFillController(configuration);
-		vine = new GrowVine(configuration);
-		chorusFlower = new GrowChorusFlower(configuration);
-		zombie = new GrowZombie(configuration);
-		animal = new GrowAnimal(configuration);
-		jungle = new GrowJungle(configuration);
+	public GrowController(CommonConfiguration configuration, World world) {
+		context = new GrowContext(configuration, world.provider.getDimension());
+
+		cactus = new GrowCactus(context);
+		reed = new GrowReed(context);
+		wart = new GrowWart(context);
+		melon = new GrowStemBlock(context);
+		customFill = new GrowCustomFillController(context);
+		vine = new GrowVine(context);
+		chorusFlower = new GrowChorusFlower(context);
+		zombie = new GrowZombie(context);
+		animal = new GrowAnimal(context);
+		jungle = new GrowJungle(context);
 	}
 
 	public GrowResult boneMealUse(World world, BlockPos targetPosition, IBlockState targetblockState) {
+		context.snapshotRefresh();
+		context.positionResolve(world, targetPosition);
+
 		Block targetBlock = targetblockState.getBlock();
 
 		// vanilla
@@ -60,39 +66,39 @@ public class GrowController {
 		// farmland plant
 		if (targetBlock.equals(Blocks.CARROTS) || targetBlock.equals(Blocks.POTATOES)
 				|| targetBlock.equals(Blocks.WHEAT) || targetBlock.equals(Blocks.BEETROOTS)) {
-			return GrowResult.ofVanilla(configuration.elementGet(CommonConfiguration.ElementPlantEnable));
+			return GrowResult.ofVanilla(context.elementGet(CommonConfiguration.ElementPlantEnable));
 		}
 
 		// sapling
 		if (targetBlock.equals(Blocks.SAPLING)) {
-			return GrowResult.ofVanilla(configuration.elementGet(CommonConfiguration.ElementSaplingEnable));
+			return GrowResult.ofVanilla(context.elementGet(CommonConfiguration.ElementSaplingEnable));
 		}
 
 		// grass block
 		if (targetBlock.equals(Blocks.GRASS)) {
-			return GrowResult.ofVanilla(configuration.elementGet(CommonConfiguration.ElementGrassBlockEnable));
+			return GrowResult.ofVanilla(context.elementGet(CommonConfiguration.ElementGrassBlockEnable));
 		}
 
 		// flower
 		if (targetBlock.equals(Blocks.TALLGRASS) || targetBlock.equals(Blocks.DOUBLE_PLANT)) {
-			return GrowResult.ofVanilla(configuration.elementGet(CommonConfiguration.ElementFlowerEnable));
+			return GrowResult.ofVanilla(context.elementGet(CommonConfiguration.ElementFlowerEnable));
 		}
 
 		// mushroom
 		if (targetBlock.equals(Blocks.BROWN_MUSHROOM) || targetBlock.equals(Blocks.RED_MUSHROOM)) {
-			return GrowResult.ofVanilla(configuration.elementGet(CommonConfiguration.ElementMushroomEnable));
+			return GrowResult.ofVanilla(context.elementGet(CommonConfiguration.ElementMushroomEnable));
 		}
 
 		// cocoa
 		if (targetBlock.equals(Blocks.COCOA)) {
-			return GrowResult.ofVanilla(configuration.elementGet(CommonConfiguration.ElementCocoaEnable));
+			return GrowResult.ofVanilla(context.elementGet(CommonConfiguration.ElementCocoaEnable));
 		}
 
 		// custom
 
 		// cactus
 		if (targetBlock.equals(Blocks.CACTUS)) {
-			if (configuration.elementGet(CommonConfiguration.ElementCactusEnable)) {
+			if (context.elementGet(CommonConfiguration.ElementCactusEnable)) {
 				return GrowResult.ofCustom(cactus.grow(world, targetPosition));
 			} else {
 				return GrowResult.ofCustom(false);
@@ -101,7 +107,7 @@ public class GrowController {
 
 		// reed
 		if (targetBlock.equals(Blocks.REEDS)) {
-			if (configuration.elementGet(CommonConfiguration.ElementReedEnable)) {
+			if (context.elementGet(CommonConfiguration.ElementReedEnable)) {
 				return GrowResult.ofCustom(reed.grow(world, targetPosition));
 			} else {
 				return GrowResult.ofCustom(false);
@@ -110,7 +116,7 @@ public class GrowController {
 
 		// wart
 		if (targetBlock.equals(Blocks.NETHER_WART)) {
-			if (configuration.elementGet(CommonConfiguration.ElementWartEnable)) {
+			if (context.elementGet(CommonConfiguration.ElementWartEnable)) {
 				return GrowResult.ofCustom(wart.grow(world, targetPosition));
 			} else {
 				return GrowResult.ofCustom(false);
@@ -123,21 +129,21 @@ public class GrowController {
 
 			if (stemIsMature) {
 				// mature stem, try custom block grow
-				if (configuration.elementGet(CommonConfiguration.ElementMelonBlockEnable)) {
+				if (context.elementGet(CommonConfiguration.ElementMelonBlockEnable)) {
 					return GrowResult.ofCustom(melon.grow(world, targetPosition));
 				} else {
 					return GrowResult.ofCustom(false);
 				}
 			} else {
 				// vanilla
-				return GrowResult.ofVanilla(configuration.elementGet(CommonConfiguration.ElementMelonEnable));
+				return GrowResult.ofVanilla(context.elementGet(CommonConfiguration.ElementMelonEnable));
 			}
 		}
 		
 		// jungle log
 		if (targetBlock.equals(Blocks.LOG)) {
 			if (targetblockState.getValue(BlockOldLog.VARIANT) == BlockPlanks.EnumType.JUNGLE) {
-				if (configuration.elementGet(CommonConfiguration.ElementJungleLogEnable)) {
+				if (context.elementGet(CommonConfiguration.ElementJungleLogEnable)) {
 					return GrowResult.ofCustom(jungle.growLog(world, targetPosition));
 				} else {
 					return GrowResult.ofCustom(false);
@@ -148,7 +154,7 @@ public class GrowController {
 		// jungle leaf
 		if (targetBlock.equals(Blocks.LEAVES)) {
 			if (targetblockState.getValue(BlockOldLeaf.VARIANT) == BlockPlanks.EnumType.JUNGLE) {
-				if (configuration.elementGet(CommonConfiguration.ElementJungleLeafEnable)) {
+				if (context.elementGet(CommonConfiguration.ElementJungleLeafEnable)) {
 					return GrowResult.ofCustom(jungle.growLeaf(world, targetPosition));
 				} else {
 					return GrowResult.ofCustom(false);
@@ -159,7 +165,7 @@ public class GrowController {
 		// custom fill
 		boolean customFillAtLeastOneSuccess = false;
 
-		for (GrowCustomFillItem item : configuration.customFillList) {
+		for (GrowCustomFillItem item : context.snapshot().customFillList()) {
 			Block targetDesireBlock = item.targetBlockStateCache.getBlock();
 			if (targetBlock.equals(targetDesireBlock)) {
 				// found one
@@ -178,7 +184,7 @@ public class GrowController {
 
 		// vine
 		if (targetBlock.equals(Blocks.VINE)) {
-			if (configuration.elementGet(CommonConfiguration.ElementVineEnable)) {
+			if (context.elementGet(CommonConfiguration.ElementVineEnable)) {
 				return GrowResult.ofCustom(vine.grow(world, targetPosition));
 			} else {
 				return GrowResult.ofCustom(false);
@@ -187,7 +193,7 @@ public class GrowController {
 
 		// chorus flower
 		if (targetBlock.equals(Blocks.CHORUS_FLOWER)) {
-			if (configuration.elementGet(CommonConfiguration.ElementChorusFlowerEnable)) {
+			if (context.elementGet(CommonConfiguration.ElementChorusFlowerEnable)) {
 				return GrowResult.ofCustom(chorusFlower.grow(world, targetPosition));
 			} else {
 				return GrowResult.ofCustom(false);
@@ -200,6 +206,9 @@ public class GrowController {
 	}
 
 	public boolean boneMealUseEntity(World world, Entity targetEntity) {
+		context.snapshotRefresh();
+		context.positionResolve(world, targetEntity.getPosition());
+
 		// zombie
 		if (targetEntity instanceof EntityZombie) {
 			EntityZombie zombieEntity = (EntityZombie)targetEntity;
@@ -217,6 +226,37 @@ public class GrowController {
 		return false;
 	}
 	
+	// Runs a custom fill rule over every matching block in the chunk, returns
+	// the number of blocks filled. The rule's biome and dimension lists are
+	// ignored because the caller picked the rule.
+	public int customFillChunk(World world, Chunk chunk, GrowCustomFillItem item) {
+		context.snapshotRefresh();
+
+		return customFill.chunkFill(world, chunk, item);
+	}
+
+	// only affects this mod's random choices, not the world's
+	public void randomSeed(long seed) {
+		context.randomSeed(seed);
+	}
+
+	// call when a chunk in this controller's world unloads
+	public void chunkUnload(Chunk chunk) {
+		context.sectionIndex().chunkRemove(chunk);
+	}
+
+	// call when a chunk in this controller's world is saved
+	public void chunkSave(Chunk chunk) {
+		context.sectionIndex().chunkRemove(chunk);
+	}
+
+	// whether bone meal can do anything to a fluid in the given world
+	public boolean isFluidTarget(World world) {
+		context.snapshotRefresh();
+
+		return context.isFluidTarget();
+	}
+
 	public boolean isBonemeal(ItemStack itemStack) {
 		if (!itemStack.getItem().equals(Items.DYE)) {
 			// not dye
@@ -10,18 +10,18 @@ import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
 
-import mattjohns.common.math.General;
-import mattjohns.minecraft.bonemealcontrol.common.CommonConfiguration;
 import mattjohns.minecraft.common.block.BlockStateUtility;
-import mattjohns.minecraft.common.system.SystemUtility;
+import mattjohns.minecraft.common.chunk.ChunkSectionBlockIndex;
 
 // logic for custom bone meal targets defined by the user
 public class GrowCustomFillController {
-	protected CommonConfiguration configuration;
+	protected GrowContext context;
 
-	public GrowCustomFillController(CommonConfiguration configuration) {
-		this.configuration = configuration;
+	public GrowCustomFillController(GrowContext context) {
+		this.context = context;
 	}
 
 	public boolean grow(World world, BlockPos targetPosition, GrowCustomFillItem item) {
@@ -44,7 +44,11 @@ public class GrowCustomFillController {
 		}
 
 		// get all blocks within custom radius
-		ArrayList<BlockPos> radiusOffsetList = SystemUtility.radiusGetBlockOffsetList(item.radius);
+		ArrayList<BlockPos> radiusOffsetList = context.radiusGetBlockOffsetList(item.radius);
+
+		// most radius blocks get rejected so read them without allocating a
+		// position, only make a real one for blocks that get filled
+		BlockPos.MutableBlockPos position = context.positionScratch();
 
 		// block that will be used to fill
 		IBlockState fillDesireBlockState = item.fillBlockStateCache;
@@ -52,94 +56,212 @@ public class GrowCustomFillController {
 		// special handling when placing double-high blocks
 		Optional<IBlockState> fillDesireBlockStateTopHalf = blockStateGetTopHalf(fillDesireBlockState);
 
+		ChunkSectionBlockIndex sectionIndex = context.sectionIndex();
+
+		// Section of the previous radius block. The radius is a flat disc so
+		// runs of blocks share a section and only need one index lookup.
+		int sectionX = 0;
+		int sectionY = 0;
+		int sectionZ = 0;
+		boolean sectionIsTarget = true;
+		boolean sectionIsValid = false;
+
 		// fill each block in the radius
 		for (BlockPos radiusOffset : radiusOffsetList) {
-			BlockPos fillPosition;
-
-			// ensure base block is same type as target
-			BlockPos targetSubPosition = targetPosition.add(radiusOffset);
-			IBlockState targetSubBlockState = world.getBlockState(targetSubPosition);
-			Block targetSubBlock = targetSubBlockState.getBlock();
-			if (!targetSubBlock.equals(targetExistBlock)) {
-				// radius block is not the target type, ignore it
-				continue;
+			position.setPos(targetPosition.getX() + radiusOffset.getX(), targetPosition.getY() + radiusOffset.getY(),
+					targetPosition.getZ() + radiusOffset.getZ());
+
+			if (!sectionIsValid || (position.getX() >> 4) != sectionX || (position.getY() >> 4) != sectionY
+					|| (position.getZ() >> 4) != sectionZ) {
+				sectionX = position.getX() >> 4;
+				sectionY = position.getY() >> 4;
+				sectionZ = position.getZ() >> 4;
+				sectionIsTarget = sectionIsTarget(world, position, sectionIndex, targetExistBlock);
+				sectionIsValid = true;
 			}
 
-			// also check block state for target
-			if (!BlockStateUtility.compareSpecific(targetSubBlockState, targetDesireBlockState, targetDesireBlockStateKeyList)) {
-				// block state didn't match
+			if (!sectionIsTarget) {
+				// target block isn't anywhere in this section
 				continue;
 			}
 
-			// if placing on surface then fill position is up
-			if (item.surfaceIsFill) {
-				fillPosition = targetSubPosition.up();
-			} else {
-				fillPosition = targetSubPosition;
+			// chance
+			double effectiveChance = item.chance;
+
+			// always place center block
+			if (item.centerIsAlwaysFill) {
+				if (radiusOffset.getX() == 0 && radiusOffset.getY() == 0) {
+					effectiveChance = 1.0;
+				}
 			}
 
-			boolean placementIsValid = true;
+			cellFill(world, position, item, effectiveChance, fillDesireBlockStateTopHalf);
+		}
 
-			IBlockState fillAboveBlockState = world.getBlockState(fillPosition.up());
-			Block fillAboveBlock = fillAboveBlockState.getBlock();
+		return true;
+	}
 
-			// ensure not covered
+	// Fill every matching block in a loaded chunk as if each one had been
+	// targeted with a radius of zero. Returns the number of blocks filled.
+	public int chunkFill(World world, Chunk chunk, GrowCustomFillItem item) {
+		Block targetBlock = item.targetBlockStateCache.getBlock();
 
-			// by air
-			if (item.aboveIsRequireAir) {
-				if (!fillAboveBlock.equals(Blocks.AIR)) {
-					placementIsValid = false;
-				}
+		Optional<IBlockState> fillDesireBlockStateTopHalf = blockStateGetTopHalf(item.fillBlockStateCache);
+
+		BlockPos.MutableBlockPos position = context.positionScratch();
+
+		int baseX = chunk.x * 16;
+		int baseZ = chunk.z * 16;
+
+		ChunkSectionBlockIndex sectionIndex = context.sectionIndex();
+
+		int result = 0;
+
+		for (ExtendedBlockStorage section : chunk.getBlockStorageArray()) {
+			if (section == Chunk.NULL_BLOCK_STORAGE || section.isEmpty()) {
+				// nothing but air
+				continue;
 			}
 
-			// by opaque block
-			if (item.aboveIsRequireTransparent) {
-				if (fillAboveBlockState.getMaterial().isOpaque()) {
-					placementIsValid = false;
-				}
+			// the whole section gets read anyway so only use a summary if it's
+			// already there
+			if (sectionIndex.isAbsentKnown(chunk, section, targetBlock)) {
+				continue;
 			}
 
-			// don't overwrite anything except air if placing on surface
-			if (item.surfaceIsFill) {
-				Block fillExistBlock = world.getBlockState(fillPosition).getBlock();
-				if (!fillExistBlock.equals(Blocks.AIR)) {
-					placementIsValid = false;
+			int baseY = section.getYLocation();
+
+			for (int y = 0; y < 16; y++) {
+				for (int z = 0; z < 16; z++) {
+					for (int x = 0; x < 16; x++) {
+						// cheap block test straight from the section before the
+						// full checks
+						if (section.get(x, y, z).getBlock() != targetBlock) {
+							continue;
+						}
+
+						position.setPos(baseX + x, baseY + y, baseZ + z);
+
+						if (cellFill(world, position, item, item.chance, fillDesireBlockStateTopHalf)) {
+							result++;
+						}
+					}
 				}
 			}
+		}
 
-			// chance
-			double effectiveChance = item.chance;
+		return result;
+	}
 
-			// always place center block
-			if (item.centerIsAlwaysFill) {
-				if (radiusOffset.getX() == 0 && radiusOffset.getY() == 0) {
-					effectiveChance = 1.0;
-				}
+	// False if the section holding the position definitely has no target
+	// blocks. Only looks at chunks that are already loaded.
+	protected boolean sectionIsTarget(World world, BlockPos position, ChunkSectionBlockIndex sectionIndex,
+			Block targetBlock) {
+		int sectionY = position.getY() >> 4;
+		if (sectionY < 0 || sectionY >= 16) {
+			// outside the world, let the normal block read deal with it
+			return true;
+		}
+
+		if (!world.isBlockLoaded(position)) {
+			return true;
+		}
+
+		Chunk chunk = world.getChunkFromBlockCoords(position);
+		ExtendedBlockStorage section = chunk.getBlockStorageArray()[sectionY];
+
+		return sectionIndex.isPresent(chunk, section, targetBlock);
+	}
+
+	// Fills a single block if it matches the target. Position is changed.
+	// Returns true if something was placed.
+	protected boolean cellFill(World world, BlockPos.MutableBlockPos position, GrowCustomFillItem item,
+			double effectiveChance, Optional<IBlockState> fillDesireBlockStateTopHalf) {
+		IBlockState targetDesireBlockState = item.targetBlockStateCache;
+		ArrayList<String> targetDesireBlockStateKeyList = item.targetBlockStateKeyListCache;
+
+		IBlockState fillDesireBlockState = item.fillBlockStateCache;
+
+		// ensure base block is same type as target
+		IBlockState targetSubBlockState = world.getBlockState(position);
+		Block targetSubBlock = targetSubBlockState.getBlock();
+		if (!targetSubBlock.equals(targetDesireBlockState.getBlock())) {
+			// radius block is not the target type, ignore it
+			return false;
+		}
+
+		// also check block state for target
+		if (!BlockStateUtility.compareSpecific(targetSubBlockState, targetDesireBlockState, targetDesireBlockStateKeyList)) {
+			// block state didn't match
+			return false;
+		}
+
+		// if placing on surface then fill position is up
+		int fillPositionY;
+		if (item.surfaceIsFill) {
+			fillPositionY = position.getY() + 1;
+		} else {
+			fillPositionY = position.getY();
+		}
+
+		boolean placementIsValid = true;
+
+		position.setY(fillPositionY + 1);
+		IBlockState fillAboveBlockState = world.getBlockState(position);
+		Block fillAboveBlock = fillAboveBlockState.getBlock();
+
+		// ensure not covered
+
+		// by air
+		if (item.aboveIsRequireAir) {
+			if (!fillAboveBlock.equals(Blocks.AIR)) {
+				placementIsValid = false;
 			}
+		}
 
-			if (!General.randomChance(effectiveChance)) {
-				// chance failed
+		// by opaque block
+		if (item.aboveIsRequireTransparent) {
+			if (fillAboveBlockState.getMaterial().isOpaque()) {
 				placementIsValid = false;
 			}
+		}
 
-			if (!placementIsValid) {
-				continue;
+		// don't overwrite anything except air if placing on surface
+		if (item.surfaceIsFill) {
+			position.setY(fillPositionY);
+			Block fillExistBlock = world.getBlockState(position).getBlock();
+			if (!fillExistBlock.equals(Blocks.AIR)) {
+				placementIsValid = false;
 			}
+		}
 
-			// place it
-			if (fillDesireBlockStateTopHalf.isPresent()) {
-				// double-high block, only place if there's space
-				if (world.getBlockState(fillPosition.up()).getBlock().equals(Blocks.AIR)) {
-					// bottom
-					world.setBlockState(fillPosition, fillDesireBlockState, 2);
+		if (!context.randomChance(effectiveChance)) {
+			// chance failed
+			placementIsValid = false;
+		}
 
-					// top
-					world.setBlockState(fillPosition.up(), fillDesireBlockStateTopHalf.get(), 2);
-				}
-			} else {
-				// normal single block
-				world.setBlockState(fillPosition, fillDesireBlockState, 2);
+		if (!placementIsValid) {
+			return false;
+		}
+
+		position.setY(fillPositionY);
+		BlockPos fillPosition = position.toImmutable();
+
+		// place it
+		if (fillDesireBlockStateTopHalf.isPresent()) {
+			// double-high block, only place if there's space
+			if (!fillAboveBlock.equals(Blocks.AIR)) {
+				return false;
 			}
+
+			// bottom
+			world.setBlockState(fillPosition, fillDesireBlockState, 2);
+
+			// top
+			world.setBlockState(fillPosition.up(), fillDesireBlockStateTopHalf.get(), 2);
+		} else {
+			// normal single block
+			world.setBlockState(fillPosition, fillDesireBlockState, 2);
 		}
 
 		return true;
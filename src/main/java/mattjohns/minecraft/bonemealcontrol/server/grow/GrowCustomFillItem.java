@@ -1,9 +1,11 @@
 package mattjohns.minecraft.bonemealcontrol.server.grow;
 
 import java.util.ArrayList;
+import java.util.Objects;
 
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
+import net.minecraft.world.biome.Biome;
 
 import mattjohns.minecraft.common.block.BlockStateException;
 import mattjohns.minecraft.common.block.BlockStateUtility;
@@ -24,6 +26,9 @@ public class GrowCustomFillItem {
 	public static final double ChanceMinimum = 0d;
 	public static final double ChanceMaximum = 1d;
 
+	// biome ids fit in a byte
+	public static final int BiomeIdListSize = 256;
+
 	// not used anywhere, just for documenting the JSON file
 	public String description;
 
@@ -79,6 +84,17 @@ public class GrowCustomFillItem {
 	// Same as transparent but requires air instead.
 	public boolean aboveIsRequireAir;
 
+	// Only apply in these biomes, using registry names such as
+	// "minecraft:desert". Missing or empty means every biome.
+	public ArrayList<String> biomeList;
+
+	// Only apply in these dimension ids. Missing or empty means every
+	// dimension.
+	public ArrayList<Integer> dimensionList;
+
+	// Indexed by biome id, derived from biome list. Null means every biome.
+	protected transient boolean[] biomeIsMatchCache;
+
 	// Tries to fix any errors by using default values, returns false if can't
 	// be fixed.
 	//
@@ -127,6 +143,14 @@ public class GrowCustomFillItem {
 			errorList.add("fillRadius is greater than maximum of \"" + RadiusMaximum + "\".  Value set to maximum.");
 		}
 
+		if (biomeList == null) {
+			biomeList = new ArrayList<>();
+		}
+
+		if (dimensionList == null) {
+			dimensionList = new ArrayList<>();
+		}
+
 		// chance
 		if (chance < ChanceMinimum) {
 			chance = ChanceMinimum;
@@ -175,6 +199,55 @@ public class GrowCustomFillItem {
 		}
 	}
 
+	// needs biomes to be registered
+	public void biomeCacheDerive(Log log) {
+		if (biomeList.isEmpty()) {
+			biomeIsMatchCache = null;
+			return;
+		}
+
+		// unknown biomes are left out so a list of only bad names matches
+		// nothing rather than everything
+		biomeIsMatchCache = new boolean[BiomeIdListSize];
+
+		for (String biomeName : biomeList) {
+			Biome biome = SystemUtility.biomeGet(biomeName.trim());
+			if (biome == null) {
+				log.error("Custom fill biome \"" + biomeName + "\" not found.");
+				continue;
+			}
+
+			int biomeId = Biome.getIdForBiome(biome);
+			if (biomeId >= 0 && biomeId < BiomeIdListSize) {
+				biomeIsMatchCache[biomeId] = true;
+			}
+		}
+	}
+
+	public boolean isBiomeMatch(int biomeId) {
+		if (biomeIsMatchCache == null) {
+			return true;
+		}
+
+		if (biomeId < 0 || biomeId >= BiomeIdListSize) {
+			return false;
+		}
+
+		return biomeIsMatchCache[biomeId];
+	}
+
+	public boolean isBiomeLimited() {
+		return biomeIsMatchCache != null;
+	}
+
+	public boolean isDimensionMatch(int dimension) {
+		return dimensionList.isEmpty() || dimensionList.contains(dimension);
+	}
+
+	public boolean isDimensionLimited() {
+		return !dimensionList.isEmpty();
+	}
+
 	public IBlockState targetBlockStateCache() {
 		return targetBlockStateCache;
 	}
@@ -183,6 +256,37 @@ public class GrowCustomFillItem {
 		return fillBlockStateCache;
 	}
 
+	// Same settings from the JSON file, so a reload that changes nothing can be
+	// spotted. The description doesn't affect anything and is ignored.
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+
+		if (!(other instanceof GrowCustomFillItem)) {
+			return false;
+		}
+
+		GrowCustomFillItem item = (GrowCustomFillItem) other;
+
+		return Objects.equals(targetBlockName, item.targetBlockName)
+				&& Objects.equals(targetBlockState, item.targetBlockState)
+				&& Objects.equals(fillBlockName, item.fillBlockName)
+				&& Objects.equals(fillBlockState, item.fillBlockState) && radius == item.radius
+				&& chance == item.chance && centerIsAlwaysFill == item.centerIsAlwaysFill
+				&& surfaceIsFill == item.surfaceIsFill && aboveIsRequireTransparent == item.aboveIsRequireTransparent
+				&& aboveIsRequireAir == item.aboveIsRequireAir && Objects.equals(biomeList, item.biomeList)
+				&& Objects.equals(dimensionList, item.dimensionList);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(targetBlockName, targetBlockState, fillBlockName, fillBlockState, radius, chance,
+				centerIsAlwaysFill, surfaceIsFill, aboveIsRequireTransparent, aboveIsRequireAir, biomeList,
+				dimensionList);
+	}
+
 	// get block state from text and merge with given state
 	protected IBlockState blockStateDerive(String text, IBlockState defaultBlockState, Log log) {
 		try {
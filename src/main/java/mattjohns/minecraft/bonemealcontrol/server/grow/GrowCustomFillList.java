@@ -1,12 +1,17 @@
 package mattjohns.minecraft.bonemealcontrol.server.grow;
 
 import java.util.ArrayList;
+import java.util.function.IntPredicate;
 
 import mattjohns.minecraft.common.log.Log;
 
 public class GrowCustomFillList extends ArrayList<GrowCustomFillItem> {
 	private static final long serialVersionUID = 1L;
 
+	// True if any item targets a fluid block. Fluids need an extra ray trace on
+	// every right-click so this lets the caller skip it when there are none.
+	protected transient boolean isFluidTargetCache = false;
+
 	// returns error text, removes unfixable items from the list
 	public ArrayList<String> validateAndFix() {
 		ArrayList<String> result = new ArrayList<>();
@@ -31,5 +36,48 @@ public class GrowCustomFillList extends ArrayList<GrowCustomFillItem> {
 		for (GrowCustomFillItem item : this) {
 			item.blockStateCacheDerive(log);
 		}
+
+		fluidTargetDerive();
+	}
+
+	public void biomeCacheDerive(Log log) {
+		for (GrowCustomFillItem item : this) {
+			item.biomeCacheDerive(log);
+		}
+	}
+
+	protected void fluidTargetDerive() {
+		isFluidTargetCache = false;
+
+		for (GrowCustomFillItem item : this) {
+			if (item.targetBlockStateCache().getMaterial().isLiquid()) {
+				isFluidTargetCache = true;
+			}
+		}
+	}
+
+	// Copy with only the items whose index passes. Items are shared, not
+	// copied, and already have their caches derived. Returns this list if
+	// every item passes.
+	public GrowCustomFillList filter(IntPredicate indexIsKeep) {
+		GrowCustomFillList result = new GrowCustomFillList();
+
+		for (int i = 0; i < size(); i++) {
+			if (indexIsKeep.test(i)) {
+				result.add(get(i));
+			}
+		}
+
+		if (result.size() == size()) {
+			return this;
+		}
+
+		result.fluidTargetDerive();
+
+		return result;
+	}
+
+	public boolean isFluidTarget() {
+		return isFluidTargetCache;
 	}
 }
@@ -8,14 +8,13 @@ import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
-import mattjohns.common.math.General;
 import mattjohns.minecraft.bonemealcontrol.common.CommonConfiguration;
 
 public class GrowJungle {
-	protected CommonConfiguration configuration;
+	protected GrowContext context;
 
-	public GrowJungle(CommonConfiguration configuration) {
-		this.configuration = configuration;
+	public GrowJungle(GrowContext context) {
+		this.context = context;
 	}
 
 	public boolean growLog(World world, BlockPos position) {
@@ -34,7 +33,7 @@ public class GrowJungle {
 		}
 		
 		// pick a random side of the log
-		int sideIndex = General.randomGetIntegerExclusive(4);
+		int sideIndex = context.randomGetIntegerExclusive(4);
 		EnumFacing side = EnumFacing.getHorizontal(sideIndex);
 
 		BlockPos sidePosition = position.offset(side);
@@ -46,8 +45,8 @@ public class GrowJungle {
 		}
 
 		// chance
-		double chance = configuration.elementGet(CommonConfiguration.ElementJungleLogChance);
-		if (!General.randomChance(chance)) {
+		double chance = context.elementGet(CommonConfiguration.ElementJungleLogChance);
+		if (!context.randomChance(chance)) {
 			// chance failed but use up bone meal
 			return true;
 		}
@@ -77,7 +76,7 @@ public class GrowJungle {
 		}
 				
 		// pick a random side of the leaf
-		int sideIndex = General.randomGetIntegerExclusive(5);
+		int sideIndex = context.randomGetIntegerExclusive(5);
 		
 		EnumFacing side;
 		if (sideIndex == 4) {
@@ -96,8 +95,8 @@ public class GrowJungle {
 		}
 
 		// chance
-		double chance = configuration.elementGet(CommonConfiguration.ElementJungleLeafChance);
-		if (!General.randomChance(chance)) {
+		double chance = context.elementGet(CommonConfiguration.ElementJungleLeafChance);
+		if (!context.randomChance(chance)) {
 			// chance failed but use up bone meal
 			return true;
 		}
@@ -10,8 +10,8 @@ import mattjohns.minecraft.common.storage.ConfigurationElementInteger;
 
 // sugar cane
 public class GrowReed extends GrowTower {
-	public GrowReed(CommonConfiguration configuration) {
-		super(configuration);
+	public GrowReed(GrowContext context) {
+		super(context);
 	}
 
 	@Override
@@ -8,17 +8,16 @@ import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
-import mattjohns.common.math.General;
 import mattjohns.minecraft.bonemealcontrol.common.CommonConfiguration;
 
 // melon and pumpkin blocks, both have same growth type
 public class GrowStemBlock {
 	protected static final int AgeSize = 8;
 
-	protected CommonConfiguration configuration;
+	protected GrowContext context;
 
-	public GrowStemBlock(CommonConfiguration configuration) {
-		this.configuration = configuration;
+	public GrowStemBlock(GrowContext context) {
+		this.context = context;
 	}
 
 	// need to check if mature so can decide whether to do vanilla bonemeal
@@ -76,9 +75,9 @@ public class GrowStemBlock {
 					targetBlock) || fruitSoilBlock == Blocks.DIRT || fruitSoilBlock == Blocks.GRASS) {
 
 				// chance
-				double chance = configuration.elementGet(CommonConfiguration.ElementMelonBlockChance);
+				double chance = context.elementGet(CommonConfiguration.ElementMelonBlockChance);
 
-				if (General.randomChance(chance)) {
+				if (context.randomChance(chance)) {
 					// place it
 					world.setBlockState(fruitPosition, fruitBlock.getDefaultState());
 				}
@@ -9,8 +9,6 @@ import net.minecraft.init.Blocks;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
-import mattjohns.common.math.General;
-import mattjohns.minecraft.bonemealcontrol.common.CommonConfiguration;
 import mattjohns.minecraft.common.storage.ConfigurationElementInteger;
 
 // Common code for cactus and reed because they grow the same way. 
@@ -18,10 +16,10 @@ public abstract class GrowTower {
 	protected static final int AgeSize = 16;
 	protected static final int SizeYMaximum = 3;
 
-	protected CommonConfiguration configuration;
+	protected GrowContext context;
 
-	public GrowTower(CommonConfiguration configuration) {
-		this.configuration = configuration;
+	public GrowTower(GrowContext context) {
+		this.context = context;
 	}
 
 	// false if plant is malformed or already full height
@@ -105,10 +103,10 @@ public abstract class GrowTower {
 	}
 
 	private int ageIncrementDerive() {
-		int fixed = configuration.elementGet(configurationElementAgeIncrement());
-		int randomMaximum = configuration.elementGet(configurationElementAgeRandomIncrement());
+		int fixed = context.elementGet(configurationElementAgeIncrement());
+		int randomMaximum = context.elementGet(configurationElementAgeRandomIncrement());
 
-		int randomAmount = General.randomGetIntegerExclusive(randomMaximum + 1);
+		int randomAmount = context.randomGetIntegerExclusive(randomMaximum + 1);
 
 		int result = fixed + randomAmount;
 
@@ -1,6 +1,5 @@
 package mattjohns.minecraft.bonemealcontrol.server.grow;
 
-import mattjohns.common.math.General;
 import mattjohns.minecraft.bonemealcontrol.common.CommonConfiguration;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
@@ -8,10 +7,10 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
 public class GrowVine {
-	protected CommonConfiguration configuration;
+	protected GrowContext context;
 
-	public GrowVine(CommonConfiguration configuration) {
-		this.configuration = configuration;
+	public GrowVine(GrowContext context) {
+		this.context = context;
 	}
 
 	public boolean grow(World world, BlockPos position) {
@@ -32,10 +31,10 @@ public class GrowVine {
 	}
 
 	private int updateIncrementDerive() {
-		int fixed = configuration.elementGet(CommonConfiguration.ElementVineUpdateIncrement);
-		int randomMaximum = configuration.elementGet(CommonConfiguration.ElementVineUpdateRandomIncrement);
+		int fixed = context.elementGet(CommonConfiguration.ElementVineUpdateIncrement);
+		int randomMaximum = context.elementGet(CommonConfiguration.ElementVineUpdateRandomIncrement);
 
-		int randomAmount = General.randomGetIntegerExclusive(randomMaximum + 1);
+		int randomAmount = context.randomGetIntegerExclusive(randomMaximum + 1);
 
 		int incrementMaximum = CommonConfiguration.ElementVineUpdateIncrement.maximumGet();
 
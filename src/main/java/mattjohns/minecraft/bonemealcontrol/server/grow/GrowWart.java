@@ -6,16 +6,15 @@ import net.minecraft.init.Blocks;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
-import mattjohns.common.math.General;
 import mattjohns.minecraft.bonemealcontrol.common.CommonConfiguration;
 
 public class GrowWart {
 	protected static final int AgeMaximum = 3;
 
-	protected CommonConfiguration configuration;
+	protected GrowContext context;
 
-	public GrowWart(CommonConfiguration configuration) {
-		this.configuration = configuration;
+	public GrowWart(GrowContext context) {
+		this.context = context;
 	}
 
 	public boolean grow(World world, BlockPos position) {
@@ -51,10 +50,10 @@ public class GrowWart {
 	}
 
 	private int ageIncrementDerive() {
-		int fixed = configuration.elementGet(CommonConfiguration.ElementWartAgeIncrement);
-		int randomMaximum = configuration.elementGet(CommonConfiguration.ElementWartAgeRandomIncrement);
+		int fixed = context.elementGet(CommonConfiguration.ElementWartAgeIncrement);
+		int randomMaximum = context.elementGet(CommonConfiguration.ElementWartAgeRandomIncrement);
 
-		int randomAmount = General.randomGetIntegerExclusive(randomMaximum + 1);
+		int randomAmount = context.randomGetIntegerExclusive(randomMaximum + 1);
 
 		int result = fixed + randomAmount;
 		if (result > AgeMaximum) {
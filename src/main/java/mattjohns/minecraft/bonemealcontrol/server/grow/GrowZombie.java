@@ -3,14 +3,13 @@ package mattjohns.minecraft.bonemealcontrol.server.grow;
 import net.minecraft.entity.monster.EntityZombie;
 import net.minecraft.world.World;
 
-import mattjohns.common.math.General;
 import mattjohns.minecraft.bonemealcontrol.common.CommonConfiguration;
 
 public class GrowZombie {
-	protected CommonConfiguration configuration;
+	protected GrowContext context;
 
-	public GrowZombie(CommonConfiguration configuration) {
-		this.configuration = configuration;
+	public GrowZombie(GrowContext context) {
+		this.context = context;
 	}
 
 	public boolean grow(World world, EntityZombie zombie) {
@@ -19,9 +18,9 @@ public class GrowZombie {
 			return false;
 		}
 
-		double chance = configuration.elementGet(CommonConfiguration.ElementZombieAdultChance);
+		double chance = context.elementGet(CommonConfiguration.ElementZombieAdultChance);
 
-		if (General.randomChance(chance)) {
+		if (context.randomChance(chance)) {
 			zombie.setChild(false);
 		}
 
@@ -0,0 +1,395 @@
+package mattjohns.minecraft.bonemealcontrol.server.regionfill;
+
+import java.util.UUID;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.gen.ChunkProviderServer;
+
+import net.minecraftforge.fml.common.FMLCommonHandler;
+
+import mattjohns.common.general.TimerDiscrete;
+import mattjohns.common.storage.StorageException;
+import mattjohns.common.storage.StorageFile;
+import mattjohns.common.storage.StoragePath;
+import mattjohns.minecraft.bonemealcontrol.common.CommonConfiguration;
+import mattjohns.minecraft.bonemealcontrol.common.CommonConfigurationSnapshot;
+import mattjohns.minecraft.bonemealcontrol.server.ServerController;
+import mattjohns.minecraft.bonemealcontrol.server.grow.GrowCustomFillItem;
+import mattjohns.minecraft.bonemealcontrol.server.grow.GrowCustomFillList;
+import mattjohns.minecraft.common.log.Log;
+
+/**
+ * Runs a custom fill rule over a large region a few chunks at a time so the
+ * server doesn't freeze.
+ *
+ * Only one job at a time. Progress is saved in the world folder whenever the
+ * world saves so the job carries on after a restart.
+ */
+public class RegionFillController {
+	protected static final String Filename = CommonConfiguration.Internal.ModNameInternal + "_regionfill.dat";
+
+	protected Log log;
+	protected CommonConfiguration configuration;
+	protected ServerController server;
+
+	// null if there's no job, even a stopped one
+	protected RegionFillJob job;
+
+	// the rule the job is running, only valid while active
+	protected GrowCustomFillItem rule;
+
+	// player who started the job gets the progress reports if online
+	protected UUID reportPlayerId;
+
+	// false until the first tick after the server starts
+	protected boolean isResumeChecked = false;
+
+	// throughput since the job was last started or resumed
+	protected long timeStartNanosecond;
+	protected int chunkProcessListSize;
+	protected long blockFillListSize;
+
+	protected TimerDiscrete reportTimer = TimerDiscrete.of();
+
+	public RegionFillController(Log log, CommonConfiguration configuration, ServerController server) {
+		this.log = log;
+		this.configuration = configuration;
+		this.server = server;
+	}
+
+	public void serverStart() {
+		job = null;
+		rule = null;
+		reportPlayerId = null;
+		isResumeChecked = false;
+	}
+
+	public void list(EntityPlayerMP player) {
+		GrowCustomFillList customFillList = configuration.commonSnapshot().customFillList();
+
+		if (customFillList.isEmpty()) {
+			log.informationConsole(player, "There are no custom fill rules.");
+			return;
+		}
+
+		for (int i = 0; i < customFillList.size(); i++) {
+			GrowCustomFillItem item = customFillList.get(i);
+
+			log.informationConsole(player, i + ": " + item.targetBlockName + " -> " + item.fillBlockName
+					+ (item.description == null ? "" : " (" + item.description + ")"));
+		}
+	}
+
+	public void start(EntityPlayerMP player, int ruleIndex, int blockX1, int blockZ1, int blockX2, int blockZ2) {
+		if (isRunning()) {
+			log.informationConsole(player, "A region fill is already running, stop it first.");
+			return;
+		}
+
+		GrowCustomFillList customFillList = configuration.commonSnapshot().customFillList();
+		if (ruleIndex < 0 || ruleIndex >= customFillList.size()) {
+			log.informationConsole(player, "No custom fill rule " + ruleIndex + ", use list to see them.");
+			return;
+		}
+
+		GrowCustomFillItem item = customFillList.get(ruleIndex);
+
+		// replaces any stopped job
+		job = RegionFillJob.of(player.dimension, ruleIndex, item.targetBlockName, item.fillBlockName, blockX1,
+				blockZ1, blockX2, blockZ2);
+
+		run(player, item);
+
+		save();
+
+		log.informationConsole(player, "Region fill started on " + job.chunkListSize() + " chunks.");
+	}
+
+	public void resume(EntityPlayerMP player) {
+		if (isRunning()) {
+			log.informationConsole(player, "A region fill is already running.");
+			return;
+		}
+
+		if (job == null) {
+			job = load();
+
+			if (job == null) {
+				log.informationConsole(player, "There is no region fill to resume.");
+				return;
+			}
+		}
+
+		GrowCustomFillItem item = ruleGet(job);
+		if (item == null) {
+			log.informationConsole(player, "The custom fill rule has changed since the region fill started.");
+			return;
+		}
+
+		run(player, item);
+
+		save();
+
+		log.informationConsole(player, "Region fill resumed. " + progressText());
+	}
+
+	public void stop(EntityPlayerMP player) {
+		if (!isRunning()) {
+			log.informationConsole(player, "No region fill is running.");
+			return;
+		}
+
+		job.isActive = false;
+		rule = null;
+
+		save();
+
+		log.informationConsole(player, "Region fill stopped. " + progressText());
+	}
+
+	public void status(EntityPlayerMP player) {
+		if (job == null) {
+			log.informationConsole(player, "No region fill is running.");
+			return;
+		}
+
+		if (isRunning()) {
+			log.informationConsole(player, "Region fill running. " + progressText() + " " + throughputText());
+		} else {
+			log.informationConsole(player, "Region fill stopped. " + progressText());
+		}
+	}
+
+	// A running job holds on to its rule, swap it for the reloaded one or stop
+	// if the rule isn't there any more.
+	public void customFillChange() {
+		if (!isRunning()) {
+			return;
+		}
+
+		GrowCustomFillItem item = ruleGet(job);
+		if (item == null) {
+			report("Region fill stopped, the custom fill rule has changed since it started. " + progressText());
+			job.isActive = false;
+			rule = null;
+
+			save();
+			return;
+		}
+
+		rule = item;
+	}
+
+	public boolean isRunning() {
+		return job != null && job.isActive;
+	}
+
+	// call at the end of each server tick
+	public void tick() {
+		if (!isResumeChecked) {
+			isResumeChecked = true;
+			resumeAfterRestart();
+		}
+
+		if (!isRunning()) {
+			return;
+		}
+
+		MinecraftServer minecraftServer = FMLCommonHandler.instance().getMinecraftServerInstance();
+		WorldServer world = minecraftServer.getWorld(job.dimension);
+		if (world == null) {
+			// dimension was removed
+			report("Region fill stopped, dimension " + job.dimension + " doesn't exist.");
+			job.isActive = false;
+			rule = null;
+			return;
+		}
+
+		long budgetNanosecond = configuration.commonSnapshot()
+				.elementGet(CommonConfiguration.ElementRegionFillTickBudget) * 1000000L;
+		long timeStart = System.nanoTime();
+
+		// always do at least one chunk so it can't stall
+		do {
+			if (job.isComplete()) {
+				complete();
+				return;
+			}
+
+			int index = job.chunkNext();
+			chunkProcess(world, job.chunkX(index), job.chunkZ(index));
+
+			job.chunkDone(index);
+			chunkProcessListSize++;
+		} while (System.nanoTime() - timeStart < budgetNanosecond);
+
+		if (reportTimer.consumeEventListSize(System.currentTimeMillis()) > 0) {
+			report("Region fill " + progressText() + " " + throughputText());
+		}
+	}
+
+	// save progress, call whenever the world is saved
+	public void save() {
+		if (job == null) {
+			return;
+		}
+
+		try {
+			job.copyToFile(path());
+		} catch (StorageException exception) {
+			log.error("Unable to save region fill progress: " + exception.getMessage());
+		}
+	}
+
+	protected void chunkProcess(WorldServer world, int chunkX, int chunkZ) {
+		ChunkProviderServer chunkProvider = world.getChunkProvider();
+
+		Chunk chunk = chunkProvider.getLoadedChunk(chunkX, chunkZ);
+		boolean isLoadedAlready = chunk != null;
+
+		if (!isLoadedAlready) {
+			// only load from disk, never generate new terrain
+			chunk = chunkProvider.loadChunk(chunkX, chunkZ);
+
+			if (chunk == null) {
+				// not generated
+				return;
+			}
+		}
+
+		blockFillListSize += server.growGet(world).customFillChunk(world, chunk, rule);
+
+		if (!isLoadedAlready && !world.getPlayerChunkMap().contains(chunkX, chunkZ)) {
+			// nobody can see it so don't keep it in memory
+			chunkProvider.queueUnload(chunk);
+		}
+	}
+
+	protected void run(EntityPlayerMP player, GrowCustomFillItem item) {
+		job.isActive = true;
+		rule = item;
+
+		if (player != null) {
+			reportPlayerId = player.getUniqueID();
+		}
+
+		timeStartNanosecond = System.nanoTime();
+		chunkProcessListSize = 0;
+		blockFillListSize = 0;
+
+		int reportInterval = configuration.commonSnapshot()
+				.elementGet(CommonConfiguration.ElementRegionFillReportInterval);
+		reportTimer.frequencySet(1d / reportInterval);
+		reportTimer.restart();
+	}
+
+	protected void complete() {
+		report("Region fill complete. " + throughputText());
+
+		job = null;
+		rule = null;
+
+		try {
+			StorageFile.delete(path());
+		} catch (StorageException exception) {
+			log.error("Unable to delete region fill progress: " + exception.getMessage());
+		}
+	}
+
+	protected void resumeAfterRestart() {
+		job = load();
+
+		if (!isRunning()) {
+			// nothing or stopped by a command
+			return;
+		}
+
+		GrowCustomFillItem item = ruleGet(job);
+		if (item == null) {
+			log.warning("Region fill not resumed, the custom fill rule has changed since it started.");
+			job.isActive = false;
+			return;
+		}
+
+		run(null, item);
+
+		log.information("Region fill resumed. " + progressText());
+	}
+
+	// null if the rule has changed since the job was created
+	protected GrowCustomFillItem ruleGet(RegionFillJob job) {
+		CommonConfigurationSnapshot snapshot = configuration.commonSnapshot();
+		GrowCustomFillList customFillList = snapshot.customFillList();
+
+		if (job.ruleIndex < 0 || job.ruleIndex >= customFillList.size()) {
+			return null;
+		}
+
+		GrowCustomFillItem item = customFillList.get(job.ruleIndex);
+
+		if (!job.ruleTargetBlockName.equals(item.targetBlockName) || !job.ruleFillBlockName.equals(item.fillBlockName)) {
+			return null;
+		}
+
+		return item;
+	}
+
+	// null if there's no saved job or it couldn't be read
+	protected RegionFillJob load() {
+		String path = path();
+
+		if (!StorageFile.isExist(path)) {
+			return null;
+		}
+
+		try {
+			return RegionFillJob.copyFromFile(path);
+		} catch (StorageException exception) {
+			log.error("Unable to load region fill progress: " + exception.getMessage());
+			return null;
+		}
+	}
+
+	// in the world save folder so each world has its own job
+	protected String path() {
+		MinecraftServer minecraftServer = FMLCommonHandler.instance().getMinecraftServerInstance();
+		String directory = minecraftServer.getWorld(0).getSaveHandler().getWorldDirectory().getPath();
+
+		return StoragePath.combine(directory, Filename);
+	}
+
+	protected void report(String text) {
+		log.information(text);
+
+		if (reportPlayerId == null) {
+			return;
+		}
+
+		MinecraftServer minecraftServer = FMLCommonHandler.instance().getMinecraftServerInstance();
+		EntityPlayer player = minecraftServer.getPlayerList().getPlayerByUUID(reportPlayerId);
+
+		if (player != null) {
+			log.informationConsole(player, text);
+		}
+	}
+
+	protected String progressText() {
+		int done = job.chunkDoneListSize();
+		int size = job.chunkListSize();
+
+		return String.format("%.1f%% (%d of %d chunks).", 100d * done / size, done, size);
+	}
+
+	protected String throughputText() {
+		double second = (System.nanoTime() - timeStartNanosecond) / 1000000000d;
+		if (second <= 0d) {
+			second = 1d;
+		}
+
+		return String.format("%.1f chunks/s, %d blocks filled.", chunkProcessListSize / second, blockFillListSize);
+	}
+}
@@ -0,0 +1,187 @@
+package mattjohns.minecraft.bonemealcontrol.server.regionfill;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+
+import mattjohns.common.storage.StorageException;
+import mattjohns.common.storage.StorageFile;
+
+/**
+ * A custom fill rule being run over a rectangle of chunks.
+ *
+ * Progress is one bit per chunk so even a very large region is only a few
+ * kilobytes on disk.
+ */
+public class RegionFillJob {
+	protected static final int FileMagic = 0x424d5246;
+	protected static final int FileVersion = 1;
+
+	public final int dimension;
+
+	// index into the custom fill list
+	public final int ruleIndex;
+
+	// Block names of the rule when the job started. Used to make sure the
+	// rule at the index is still the same one when resuming.
+	public final String ruleTargetBlockName;
+	public final String ruleFillBlockName;
+
+	// chunk coordinates, inclusive
+	public final int chunkX1;
+	public final int chunkZ1;
+	public final int chunkWidth;
+	public final int chunkHeight;
+
+	// false if stopped by a command, true if it should continue after a restart
+	public boolean isActive;
+
+	// one bit for each chunk, set when done
+	protected BitSet doneList;
+
+	// everything before this is done
+	protected int cursor;
+
+	protected RegionFillJob(int dimension, int ruleIndex, String ruleTargetBlockName, String ruleFillBlockName,
+			int chunkX1, int chunkZ1, int chunkWidth, int chunkHeight, boolean isActive, BitSet doneList) {
+		this.dimension = dimension;
+		this.ruleIndex = ruleIndex;
+		this.ruleTargetBlockName = ruleTargetBlockName;
+		this.ruleFillBlockName = ruleFillBlockName;
+		this.chunkX1 = chunkX1;
+		this.chunkZ1 = chunkZ1;
+		this.chunkWidth = chunkWidth;
+		this.chunkHeight = chunkHeight;
+		this.isActive = isActive;
+		this.doneList = doneList;
+
+		assert this.chunkWidth > 0;
+		assert this.chunkHeight > 0;
+
+		cursor = doneList.nextClearBit(0);
+	}
+
+	// block coordinates, inclusive and in any order
+	public static RegionFillJob of(int dimension, int ruleIndex, String ruleTargetBlockName, String ruleFillBlockName,
+			int blockX1, int blockZ1, int blockX2, int blockZ2) {
+		int chunkX1 = Math.min(blockX1, blockX2) >> 4;
+		int chunkZ1 = Math.min(blockZ1, blockZ2) >> 4;
+		int chunkX2 = Math.max(blockX1, blockX2) >> 4;
+		int chunkZ2 = Math.max(blockZ1, blockZ2) >> 4;
+
+		return new RegionFillJob(dimension, ruleIndex, ruleTargetBlockName, ruleFillBlockName, chunkX1, chunkZ1,
+				chunkX2 - chunkX1 + 1, chunkZ2 - chunkZ1 + 1, true, new BitSet());
+	}
+
+	public int chunkListSize() {
+		return chunkWidth * chunkHeight;
+	}
+
+	public int chunkDoneListSize() {
+		return doneList.cardinality();
+	}
+
+	public boolean isComplete() {
+		return cursor >= chunkListSize();
+	}
+
+	// index of the next chunk to do, only valid if not complete
+	public int chunkNext() {
+		assert !isComplete();
+
+		return cursor;
+	}
+
+	public void chunkDone(int index) {
+		doneList.set(index);
+
+		cursor = doneList.nextClearBit(cursor);
+	}
+
+	public int chunkX(int index) {
+		return chunkX1 + (index % chunkWidth);
+	}
+
+	public int chunkZ(int index) {
+		return chunkZ1 + (index / chunkWidth);
+	}
+
+	public void copyToFile(String path) throws StorageException {
+		ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+
+		try (DataOutputStream stream = new DataOutputStream(byteStream)) {
+			stream.writeInt(FileMagic);
+			stream.writeInt(FileVersion);
+
+			stream.writeInt(dimension);
+			stream.writeInt(ruleIndex);
+			stream.writeUTF(ruleTargetBlockName);
+			stream.writeUTF(ruleFillBlockName);
+			stream.writeInt(chunkX1);
+			stream.writeInt(chunkZ1);
+			stream.writeInt(chunkWidth);
+			stream.writeInt(chunkHeight);
+			stream.writeBoolean(isActive);
+
+			byte[] doneBytes = doneList.toByteArray();
+			stream.writeInt(doneBytes.length);
+			stream.write(doneBytes);
+		} catch (IOException exception) {
+			throw new StorageException(exception);
+		}
+
+		// don't want a half written file if the server dies while saving
+		StorageFile.replaceBytes(path, byteStream.toByteArray());
+	}
+
+	public static RegionFillJob copyFromFile(String path) throws StorageException {
+		byte[] content = StorageFile.getBytes(path);
+
+		try (DataInputStream stream = new DataInputStream(new ByteArrayInputStream(content))) {
+			if (stream.readInt() != FileMagic) {
+				throw new StorageException("Region fill file \"" + path + "\" is not valid.");
+			}
+
+			int version = stream.readInt();
+			if (version != FileVersion) {
+				throw new StorageException("Region fill file \"" + path + "\" has unknown version " + version + ".");
+			}
+
+			int dimension = stream.readInt();
+			int ruleIndex = stream.readInt();
+			String ruleTargetBlockName = stream.readUTF();
+			String ruleFillBlockName = stream.readUTF();
+			int chunkX1 = stream.readInt();
+			int chunkZ1 = stream.readInt();
+			int chunkWidth = stream.readInt();
+			int chunkHeight = stream.readInt();
+			boolean isActive = stream.readBoolean();
+
+			if (chunkWidth <= 0 || chunkHeight <= 0) {
+				throw new StorageException("Region fill file \"" + path + "\" has an empty region.");
+			}
+
+			long chunkCount = (long)chunkWidth * chunkHeight;
+			if (chunkCount > Integer.MAX_VALUE) {
+				throw new StorageException("Region fill file \"" + path + "\" has a region that is too large.");
+			}
+
+			// a corrupt length must not turn into a huge or negative allocation
+			int doneLength = stream.readInt();
+			if (doneLength < 0 || doneLength > (chunkCount + 7) / 8 || doneLength > stream.available()) {
+				throw new StorageException("Region fill file \"" + path + "\" has an invalid done list length " + doneLength + ".");
+			}
+
+			byte[] doneBytes = new byte[doneLength];
+			stream.readFully(doneBytes);
+
+			return new RegionFillJob(dimension, ruleIndex, ruleTargetBlockName, ruleFillBlockName, chunkX1, chunkZ1,
+					chunkWidth, chunkHeight, isActive, BitSet.valueOf(doneBytes));
+		} catch (IOException exception) {
+			throw new StorageException("Unable to read region fill file \"" + path + "\".", exception);
+		}
+	}
+}
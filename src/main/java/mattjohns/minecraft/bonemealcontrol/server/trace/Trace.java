@@ -0,0 +1,74 @@
+package mattjohns.minecraft.bonemealcontrol.server.trace;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.UUID;
+
+import mattjohns.common.storage.StorageException;
+import mattjohns.common.storage.StorageFile;
+
+// trace file loaded into memory, see TraceRecorder for the format
+public class Trace {
+	public ArrayList<TraceEvent> eventList = new ArrayList<>();
+	public ArrayList<UUID> playerList = new ArrayList<>();
+
+	public static Trace copyFromFile(String path) throws StorageException {
+		if (!StorageFile.isExist(path)) {
+			throw new StorageException("Trace file \"" + path + "\" doesn't exist.");
+		}
+
+		Trace result = new Trace();
+
+		try (DataInputStream stream = new DataInputStream(new BufferedInputStream(Files.newInputStream(Paths.get(path))))) {
+			if (stream.readInt() != TraceRecorder.FileMagic) {
+				throw new StorageException("Trace file \"" + path + "\" is not valid.");
+			}
+
+			int version = stream.readInt();
+			if (version != TraceRecorder.FileVersion) {
+				throw new StorageException("Trace file \"" + path + "\" has unknown version " + version + ".");
+			}
+
+			while (true) {
+				byte kind;
+				try {
+					kind = stream.readByte();
+				} catch (EOFException exception) {
+					// normal end
+					break;
+				}
+
+				switch (kind) {
+				case TraceRecorder.KindPlayer: {
+					result.playerList.add(new UUID(stream.readLong(), stream.readLong()));
+					break;
+				}
+				case TraceEvent.KindBlock: {
+					result.eventList.add(TraceEvent.ofBlock(stream.readInt(), stream.readInt(), stream.readLong(),
+							stream.readInt(), stream.readInt()));
+					break;
+				}
+				case TraceEvent.KindEntity: {
+					result.eventList.add(TraceEvent.ofEntity(stream.readInt(), stream.readInt(), stream.readLong(),
+							stream.readInt(), stream.readInt()));
+					break;
+				}
+				default: {
+					throw new StorageException("Trace file \"" + path + "\" has unknown record type " + kind + ".");
+				}
+				}
+			}
+		} catch (EOFException exception) {
+			// server stopped part way through a record, keep what was read
+		} catch (IOException exception) {
+			throw new StorageException("Unable to read trace file \"" + path + "\".", exception);
+		}
+
+		return result;
+	}
+}
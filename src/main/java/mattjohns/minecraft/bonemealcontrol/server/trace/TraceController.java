@@ -0,0 +1,307 @@
+package mattjohns.minecraft.bonemealcontrol.server.trace;
+
+import java.util.HashSet;
+import java.util.UUID;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityList;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.gen.ChunkProviderServer;
+
+import net.minecraftforge.fml.common.FMLCommonHandler;
+
+import mattjohns.common.general.TimingList;
+import mattjohns.common.storage.StorageDirectory;
+import mattjohns.common.storage.StorageException;
+import mattjohns.common.storage.StoragePath;
+import mattjohns.minecraft.bonemealcontrol.common.CommonConfiguration;
+import mattjohns.minecraft.bonemealcontrol.server.ServerController;
+import mattjohns.minecraft.bonemealcontrol.server.grow.GrowController;
+import mattjohns.minecraft.common.log.Log;
+
+/**
+ * Records bone meal uses to a file and replays them later to measure how long
+ * the grow code takes with real traffic.
+ *
+ * Replay puts each recorded target block back before growing it, so only run
+ * it on a copy of the world. It has to be confirmed, runs a few events each
+ * tick and only loads chunks that already exist on disk.
+ */
+public class TraceController {
+	protected static final String Folder = CommonConfiguration.Internal.ModNameInternal + "_trace";
+	protected static final String Extension = ".trace";
+
+	protected Log log;
+	protected ServerController server;
+
+	// replay time per tick, a tick is 50 milliseconds
+	protected static final long ReplayTickBudget = 10 * 1000000L;
+
+	protected TraceRecorder recorder = new TraceRecorder();
+
+	// null unless a replay is running
+	protected Trace replayTrace;
+
+	protected int replayIndex;
+	protected long replaySeed;
+	protected TimingList replayTiming;
+	protected int replaySkipListSize;
+	protected HashSet<Integer> replaySeedDimensionList = new HashSet<>();
+	protected UUID replayPlayerId;
+
+	public TraceController(Log log, ServerController server) {
+		this.log = log;
+		this.server = server;
+	}
+
+	public void serverStart() {
+		// left over from a previous integrated server
+		recorder.close();
+
+		replayTrace = null;
+		replayTiming = null;
+		replayPlayerId = null;
+	}
+
+	public void start(EntityPlayerMP player, String name) {
+		if (!nameIsValid(name)) {
+			log.informationConsole(player, "Trace name can only have letters, numbers, '-' and '_'.");
+			return;
+		}
+
+		try {
+			StorageDirectory.createIfNotExist(directory());
+
+			recorder.open(path(name));
+		} catch (StorageException exception) {
+			log.informationConsole(player, "Unable to start trace: " + exception.getMessage());
+			return;
+		}
+
+		log.informationConsole(player, "Recording bone meal trace \"" + name + "\".");
+	}
+
+	public void stop(EntityPlayerMP player) {
+		if (!recorder.isOpen()) {
+			log.informationConsole(player, "No trace is recording.");
+			return;
+		}
+
+		int eventListSize = recorder.eventListSize();
+
+		if (recorder.close()) {
+			log.informationConsole(player, "Trace stopped with " + eventListSize + " events.");
+		} else {
+			log.informationConsole(player, "Trace stopped but some events couldn't be written.");
+		}
+	}
+
+	public void status(EntityPlayerMP player) {
+		if (recorder.isOpen()) {
+			log.informationConsole(player, "Trace recording, " + recorder.eventListSize() + " events so far.");
+		} else {
+			log.informationConsole(player, "No trace is recording.");
+		}
+
+		if (replayTrace != null) {
+			log.informationConsole(player,
+					"Trace replaying, " + replayIndex + " of " + replayTrace.eventList.size() + " events done.");
+		}
+	}
+
+	public void save() {
+		recorder.flush();
+	}
+
+	public void recordBlock(World world, BlockPos position, IBlockState blockState, EntityPlayer player) {
+		if (!recorder.isOpen()) {
+			return;
+		}
+
+		recorder.recordBlock(world.getMinecraftServer().getTickCounter(), world.provider.getDimension(),
+				position.toLong(), Block.getStateId(blockState), player.getUniqueID());
+	}
+
+	public void recordEntity(World world, Entity entity, EntityPlayer player) {
+		if (!recorder.isOpen()) {
+			return;
+		}
+
+		recorder.recordEntity(world.getMinecraftServer().getTickCounter(), world.provider.getDimension(),
+				entity.getPosition().toLong(), EntityList.getID(entity.getClass()), player.getUniqueID());
+	}
+
+	// Starts replaying the block events in a trace, a few each tick, and reports
+	// timing when done. Entity events are skipped because the entities are long
+	// gone.
+	public void replay(EntityPlayerMP player, String name, long seed, boolean isConfirm) {
+		if (!nameIsValid(name)) {
+			log.informationConsole(player, "Trace name can only have letters, numbers, '-' and '_'.");
+			return;
+		}
+
+		if (replayTrace != null) {
+			log.informationConsole(player, "A trace is already replaying.");
+			return;
+		}
+
+		if (!isConfirm) {
+			log.informationConsole(player, "Replay puts every recorded target block back in this world, "
+					+ "overwriting what is there now. Only run it on a copy of the world, add \"confirm\" to go ahead.");
+			return;
+		}
+
+		Trace trace;
+		try {
+			trace = Trace.copyFromFile(path(name));
+		} catch (StorageException exception) {
+			log.informationConsole(player, "Unable to load trace: " + exception.getMessage());
+			return;
+		}
+
+		replayTrace = trace;
+		replayIndex = 0;
+		replaySeed = seed;
+		replayTiming = TimingList.of(trace.eventList.size());
+		replaySkipListSize = 0;
+		replaySeedDimensionList.clear();
+		replayPlayerId = player.getUniqueID();
+
+		log.informationConsole(player, "Replaying trace \"" + name + "\", " + trace.eventList.size() + " events.");
+	}
+
+	// call at the end of each server tick
+	public void tick() {
+		if (replayTrace == null) {
+			return;
+		}
+
+		MinecraftServer minecraftServer = FMLCommonHandler.instance().getMinecraftServerInstance();
+
+		long timeStart = System.nanoTime();
+
+		while (replayIndex < replayTrace.eventList.size()) {
+			if (!replayEvent(minecraftServer, replayTrace.eventList.get(replayIndex))) {
+				replaySkipListSize++;
+			}
+
+			replayIndex++;
+
+			if (System.nanoTime() - timeStart >= ReplayTickBudget) {
+				return;
+			}
+		}
+
+		replayComplete();
+	}
+
+	// false if the event was skipped
+	protected boolean replayEvent(MinecraftServer minecraftServer, TraceEvent event) {
+		if (event.kind != TraceEvent.KindBlock) {
+			return false;
+		}
+
+		WorldServer world = minecraftServer.getWorld(event.dimension);
+		if (world == null) {
+			return false;
+		}
+
+		BlockPos position = BlockPos.fromLong(event.position);
+		int chunkX = position.getX() >> 4;
+		int chunkZ = position.getZ() >> 4;
+
+		ChunkProviderServer chunkProvider = world.getChunkProvider();
+
+		Chunk chunk = chunkProvider.getLoadedChunk(chunkX, chunkZ);
+		boolean isLoadedAlready = chunk != null;
+
+		if (!isLoadedAlready) {
+			// only load from disk, never generate new terrain
+			chunk = chunkProvider.loadChunk(chunkX, chunkZ);
+
+			if (chunk == null) {
+				return false;
+			}
+		}
+
+		GrowController grow = server.growGet(world);
+
+		// same seed for every world so the result can be repeated
+		if (replaySeedDimensionList.add(event.dimension)) {
+			grow.randomSeed(replaySeed);
+		}
+
+		IBlockState blockState = Block.getStateById(event.blockStateId);
+
+		// same target as when it was recorded, not timed
+		world.setBlockState(position, blockState, 2);
+
+		long timeStart = System.nanoTime();
+
+		grow.boneMealUse(world, position, blockState);
+
+		replayTiming.add(System.nanoTime() - timeStart);
+
+		if (!isLoadedAlready && !world.getPlayerChunkMap().contains(chunkX, chunkZ)) {
+			// nobody can see it so don't keep it in memory
+			chunkProvider.queueUnload(chunk);
+		}
+
+		return true;
+	}
+
+	protected void replayComplete() {
+		TimingList timing = replayTiming;
+
+		replayReport("Replayed " + timing.size() + " events, skipped " + replaySkipListSize + ".");
+
+		if (!timing.isEmpty()) {
+			double totalSecond = timing.total() / 1000000000d;
+			double throughput = totalSecond > 0d ? timing.size() / totalSecond : 0d;
+
+			replayReport(String.format("%.0f events/s, latency p50 %.1f us, p95 %.1f us, p99 %.1f us, max %.1f us.",
+					throughput, timing.percentile(50d) / 1000d, timing.percentile(95d) / 1000d,
+					timing.percentile(99d) / 1000d, timing.maximum() / 1000d));
+		}
+
+		replayTrace = null;
+		replayTiming = null;
+		replayPlayerId = null;
+	}
+
+	// player who started the replay gets the result if still online
+	protected void replayReport(String text) {
+		log.information(text);
+
+		MinecraftServer minecraftServer = FMLCommonHandler.instance().getMinecraftServerInstance();
+		EntityPlayer player = minecraftServer.getPlayerList().getPlayerByUUID(replayPlayerId);
+
+		if (player != null) {
+			log.informationConsole(player, text);
+		}
+	}
+
+	protected boolean nameIsValid(String name) {
+		return name.matches("[A-Za-z0-9_-]+");
+	}
+
+	// in the world save folder
+	protected String directory() {
+		MinecraftServer minecraftServer = FMLCommonHandler.instance().getMinecraftServerInstance();
+		String worldDirectory = minecraftServer.getWorld(0).getSaveHandler().getWorldDirectory().getPath();
+
+		return StoragePath.combine(worldDirectory, Folder);
+	}
+
+	protected String path(String name) {
+		return StoragePath.combine(directory(), name + Extension);
+	}
+}
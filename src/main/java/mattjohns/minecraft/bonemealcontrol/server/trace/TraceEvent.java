@@ -0,0 +1,47 @@
+package mattjohns.minecraft.bonemealcontrol.server.trace;
+
+import mattjohns.common.immutable.Immutable;
+
+// a single bone meal use read from a trace file
+public class TraceEvent extends Immutable<TraceEvent> {
+	public static final byte KindBlock = 1;
+	public static final byte KindEntity = 2;
+
+	public final byte kind;
+
+	// server tick counter when it happened
+	public final int tick;
+
+	public final int dimension;
+
+	// BlockPos.toLong() of the target block or the entity position
+	public final long position;
+
+	// Block.getStateId() of the target, only for block events
+	public final int blockStateId;
+
+	// EntityList.getID() of the target, only for entity events
+	public final int entityTypeId;
+
+	// index into the trace player list
+	public final int playerIndex;
+
+	protected TraceEvent(byte kind, int tick, int dimension, long position, int blockStateId, int entityTypeId,
+			int playerIndex) {
+		this.kind = kind;
+		this.tick = tick;
+		this.dimension = dimension;
+		this.position = position;
+		this.blockStateId = blockStateId;
+		this.entityTypeId = entityTypeId;
+		this.playerIndex = playerIndex;
+	}
+
+	public static TraceEvent ofBlock(int tick, int dimension, long position, int blockStateId, int playerIndex) {
+		return new TraceEvent(KindBlock, tick, dimension, position, blockStateId, -1, playerIndex);
+	}
+
+	public static TraceEvent ofEntity(int tick, int dimension, long position, int entityTypeId, int playerIndex) {
+		return new TraceEvent(KindEntity, tick, dimension, position, -1, entityTypeId, playerIndex);
+	}
+}
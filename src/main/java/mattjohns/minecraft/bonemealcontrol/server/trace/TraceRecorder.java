@@ -0,0 +1,147 @@
+package mattjohns.minecraft.bonemealcontrol.server.trace;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.UUID;
+
+import mattjohns.common.storage.StorageException;
+import mattjohns.common.storage.StorageStream;
+
+/**
+ * Writes bone meal uses to a trace file as they happen.
+ *
+ * Each record is a fixed size apart from players, which are written once the
+ * first time they show up and referred to by index after that.
+ *
+ * Synchronized because worlds might be ticked on different threads.
+ */
+public class TraceRecorder {
+	public static final int FileMagic = 0x424d5452;
+	public static final int FileVersion = 1;
+
+	public static final byte KindPlayer = 0;
+
+	protected DataOutputStream stream;
+
+	protected HashMap<UUID, Integer> playerIndexMap = new HashMap<>();
+
+	protected int eventListSize;
+
+	// false after the first write error so the log isn't spammed
+	protected boolean isWriteValid;
+
+	public synchronized void open(String path) throws StorageException {
+		close();
+
+		stream = new DataOutputStream(new BufferedOutputStream(StorageStream.createOutput(path)));
+		playerIndexMap.clear();
+		eventListSize = 0;
+		isWriteValid = true;
+
+		try {
+			stream.writeInt(FileMagic);
+			stream.writeInt(FileVersion);
+		} catch (IOException exception) {
+			close();
+			throw new StorageException("Unable to write trace file \"" + path + "\".", exception);
+		}
+	}
+
+	// returns false if there was a write error while recording
+	public synchronized boolean close() {
+		if (stream == null) {
+			return true;
+		}
+
+		try {
+			stream.close();
+		} catch (IOException exception) {
+			isWriteValid = false;
+		}
+
+		stream = null;
+
+		return isWriteValid;
+	}
+
+	// make sure everything so far is on disk
+	public synchronized void flush() {
+		if (stream == null) {
+			return;
+		}
+
+		try {
+			stream.flush();
+		} catch (IOException exception) {
+			isWriteValid = false;
+		}
+	}
+
+	public synchronized boolean isOpen() {
+		return stream != null;
+	}
+
+	public synchronized int eventListSize() {
+		return eventListSize;
+	}
+
+	public synchronized void recordBlock(int tick, int dimension, long position, int blockStateId, UUID playerId) {
+		if (stream == null) {
+			return;
+		}
+
+		try {
+			int playerIndex = playerIndexGet(playerId);
+
+			stream.writeByte(TraceEvent.KindBlock);
+			stream.writeInt(tick);
+			stream.writeInt(dimension);
+			stream.writeLong(position);
+			stream.writeInt(blockStateId);
+			stream.writeInt(playerIndex);
+
+			eventListSize++;
+		} catch (IOException exception) {
+			isWriteValid = false;
+		}
+	}
+
+	public synchronized void recordEntity(int tick, int dimension, long position, int entityTypeId, UUID playerId) {
+		if (stream == null) {
+			return;
+		}
+
+		try {
+			int playerIndex = playerIndexGet(playerId);
+
+			stream.writeByte(TraceEvent.KindEntity);
+			stream.writeInt(tick);
+			stream.writeInt(dimension);
+			stream.writeLong(position);
+			stream.writeInt(entityTypeId);
+			stream.writeInt(playerIndex);
+
+			eventListSize++;
+		} catch (IOException exception) {
+			isWriteValid = false;
+		}
+	}
+
+	// writes a player record the first time a player shows up
+	protected int playerIndexGet(UUID playerId) throws IOException {
+		Integer result = playerIndexMap.get(playerId);
+
+		if (result == null) {
+			result = playerIndexMap.size();
+			playerIndexMap.put(playerId, result);
+
+			stream.writeByte(KindPlayer);
+			stream.writeLong(playerId.getMostSignificantBits());
+			stream.writeLong(playerId.getLeastSignificantBits());
+		}
+
+		return result;
+	}
+}
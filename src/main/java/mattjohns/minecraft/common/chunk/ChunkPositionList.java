@@ -1,39 +1,78 @@
 package mattjohns.minecraft.common.chunk;
 
-import java.util.HashSet;
-import java.util.Set;
+import net.minecraft.util.math.ChunkPos;
 
-import mattjohns.common.math.Vector2I;
+import mattjohns.common.list.LongHashSet;
+import mattjohns.common.list.LongSet;
 
-public class ChunkPositionList {
-	Set<ChunkPosSortable> positionList;
+// Positions are packed with ChunkPos.asLong() so there's no object per chunk.
+// The int overloads don't allocate at all.
+public class ChunkPositionList implements ChunkPositionSet {
+	LongSet positionList;
+
+	// same positions again, for finding the closest
+	ChunkRegionIndex regionIndex = ChunkRegionIndex.of();
 
 	public ChunkPositionList() {
 		positionList = positionListCreate();
 	}
 
 	public boolean contains(ChunkPosSortable item) {
-		return positionList.contains(item);
+		return contains(item.x, item.z);
+	}
+
+	@Override
+	public boolean contains(int x, int z) {
+		return positionList.contains(ChunkPos.asLong(x, z));
 	}
 	
-	protected Set<ChunkPosSortable> positionListCreate() {
-		 return new HashSet<>();
+	protected LongSet positionListCreate() {
+		 return LongHashSet.of();
 	}
 	
 	public void addUnique(ChunkPosSortable item) {
-		positionList.add(item);
+		addUnique(item.x, item.z);
+	}
+
+	@Override
+	public void addUnique(int x, int z) {
+		if (positionList.add(ChunkPos.asLong(x, z))) {
+			regionIndexAdd(x, z);
+		}
 	}
 
 	public boolean take(ChunkPosSortable position) {
-		return positionList.remove(position);
+		return take(position.x, position.z);
 	}
 
+	public boolean take(int x, int z) {
+		if (!positionList.remove(ChunkPos.asLong(x, z))) {
+			return false;
+		}
+
+		regionIndexRemove(x, z);
+
+		return true;
+	}
+
+	@Override
 	public void clear() {
 		positionList.clear();
+		regionIndexClear();
+	}
+
+	// nothing saved, same as clear
+	@Override
+	public void close() {
+		clear();
 	}
 
 	public void remove(ChunkPosSortable position) {
-		positionList.remove(position);
+		take(position.x, position.z);
+	}
+
+	public int size() {
+		return positionList.size();
 	}
 
 	public ChunkPosSortable takeClosest(ChunkPosSortable position, int radius) {
@@ -52,31 +91,28 @@ public class ChunkPositionList {
 	
 	// square radius
 	public ChunkPosSortable getClosest(ChunkPosSortable position, int radius) {
-		ChunkPosSortable closestPosition = null;
-		double closestDistance = 0;
-
-		for (ChunkPosSortable candidate : positionList) {
-			
-			Vector2I delta = position.subtract(candidate);
-			delta = delta.absolute();
-			
-			if (delta.x <= radius && delta.y <= radius) {
-				double distanceDirect = delta.length();
-				
-				if (closestPosition == null || distanceDirect < closestDistance) {
-					closestPosition = candidate;
-					closestDistance = distanceDirect;
-				}
-			}
-		}
+		long closest = regionIndexClosest(position.x, position.z, radius);
 
-		if (closestPosition == null) {
+		if (closest == ChunkRegionIndex.PositionNone) {
 			return null;
 		}
 
-		// make a copy
+		return new ChunkPosSortable((int)closest, (int)(closest >>> 32));
+	}
+
+	protected void regionIndexAdd(int x, int z) {
+		regionIndex.add(x, z);
+	}
+
+	protected void regionIndexRemove(int x, int z) {
+		regionIndex.remove(x, z);
+	}
+
+	protected void regionIndexClear() {
+		regionIndex.clear();
+	}
 
-		/// need to work out a better way than copying these structs
-		return new ChunkPosSortable(closestPosition);
+	protected long regionIndexClosest(int x, int z, int radius) {
+		return regionIndex.closest(x, z, radius);
 	}
 }
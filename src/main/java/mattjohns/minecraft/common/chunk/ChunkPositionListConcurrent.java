@@ -1,11 +1,55 @@
 package mattjohns.minecraft.common.chunk;
 
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import mattjohns.common.list.LongHashSetConcurrent;
+import mattjohns.common.list.LongSet;
 
+// The position set is striped so contains() rarely waits. Changes hold the
+// region index lock as well so the set and the index can't disagree.
 public class ChunkPositionListConcurrent extends ChunkPositionList {
 	@Override
-	protected Set<ChunkPosSortable> positionListCreate() {
-		 return ConcurrentHashMap.newKeySet();
+	protected LongSet positionListCreate() {
+		 return LongHashSetConcurrent.of();
+	}
+
+	@Override
+	public void addUnique(int x, int z) {
+		synchronized (regionIndex) {
+			super.addUnique(x, z);
+		}
+	}
+
+	@Override
+	public boolean take(int x, int z) {
+		synchronized (regionIndex) {
+			return super.take(x, z);
+		}
+	}
+
+	@Override
+	protected void regionIndexAdd(int x, int z) {
+		synchronized (regionIndex) {
+			super.regionIndexAdd(x, z);
+		}
+	}
+
+	@Override
+	protected void regionIndexRemove(int x, int z) {
+		synchronized (regionIndex) {
+			super.regionIndexRemove(x, z);
+		}
+	}
+
+	@Override
+	protected void regionIndexClear() {
+		synchronized (regionIndex) {
+			super.regionIndexClear();
+		}
+	}
+
+	@Override
+	protected long regionIndexClosest(int x, int z, int radius) {
+		synchronized (regionIndex) {
+			return super.regionIndexClosest(x, z, radius);
+		}
 	}
 }
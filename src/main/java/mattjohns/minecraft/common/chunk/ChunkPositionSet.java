@@ -0,0 +1,14 @@
+package mattjohns.minecraft.common.chunk;
+
+// chunk positions that can be tested and added without making objects
+public interface ChunkPositionSet {
+	boolean contains(int x, int z);
+
+	void addUnique(int x, int z);
+
+	// forget every position, including anything saved
+	void clear();
+
+	// free memory, anything saved is kept for next time
+	void close();
+}
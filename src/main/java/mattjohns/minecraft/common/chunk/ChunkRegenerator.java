@@ -1,6 +1,12 @@
 package mattjohns.minecraft.common.chunk;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nullable;
 
@@ -9,44 +15,185 @@ import com.google.common.base.Predicate;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.network.play.server.SPacketChunkData;
+import net.minecraft.server.management.PlayerChunkMapEntry;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
 import net.minecraft.world.chunk.Chunk;
-
+import net.minecraft.world.gen.IChunkGenerator;
+
+import mattjohns.common.storage.StoragePath;
+import mattjohns.minecraft.common.general.TickBudgetAdaptive;
+
+/**
+ * Replaces chunks near players with freshly generated ones.
+ *
+ * Generation can run on a small worker pool so slow generators don't hold
+ * up the server tick. The main thread only swaps the finished storage into
+ * the world and sends it to players, up to a time budget each tick.
+ *
+ * Only turn on worker generation for chunk generators that are safe to call
+ * from another thread. Vanilla generators share noise arrays and random
+ * state between calls so they are not. If a worker fails, generation falls
+ * back to the main thread for the rest of the run.
+ */
 public class ChunkRegenerator {
 	private boolean isActive = false;
 
-	// chunks are often handled in threads so ensure this is thread safe
-	private ChunkPositionListConcurrent generatedList = new ChunkPositionListConcurrent();
+	// Chunks already done. Only used on the main thread, either in memory or
+	// saved with the world so a run survives a restart.
+	private ChunkPositionSet generatedList;
+
+	private static final String GENERATED_FOLDER = "chunkregenerator";
+
+	// handed to a worker but not swapped in yet
+	private ChunkPositionListConcurrent pendingList = new ChunkPositionListConcurrent();
+
+	// next player to get a chunk
+	private int playerCursor;
 
-	private int serverTickCounter;
-	private static final int TICK_DELAY = 10;
+	// main thread only, reused for every search
+	private ChunkSpiralIterator spiral = ChunkSpiralIterator.of();
+
+	private static final int PLAYER_RADIUS = 3;
+
+	private static final int WORKER_LIST_SIZE_DEFAULT = 2;
+	private static final long TICK_BUDGET_NANOSECOND_DEFAULT = 5000000L;
 
 	private WorldServer worldServer;
 
+	// empty pool means generate on the main thread
+	private ExecutorService workerPool;
+	private int workerListSize;
+
+	// Pool shut down after a worker failed. Its tasks can still be inside the
+	// generator, so nothing is generated on the main thread until it's done.
+	private ExecutorService workerPoolDrain;
+
+	// most chunks that can be generating or waiting to be swapped in at once
+	private int pendingListSizeMaximum;
+
+	// shrinks when the server is slow
+	private TickBudgetAdaptive budget;
+
+	// written by workers, read by the main thread
+	private ConcurrentLinkedQueue<ChunkRegeneratorResult> resultList = new ConcurrentLinkedQueue<>();
+
+	// changes on restart and stop so results from an earlier run are ignored
+	private AtomicInteger runId = new AtomicInteger();
+
 	public ChunkRegenerator(WorldServer worldServer) {
+		this(worldServer, false, WORKER_LIST_SIZE_DEFAULT, TICK_BUDGET_NANOSECOND_DEFAULT, false);
+	}
+
+	/**
+	 * @param isWorkerGenerate
+	 * Generate on worker threads. Leave false unless the world's chunk
+	 * generator is thread safe.
+	 *
+	 * @param workerListSize
+	 * Number of worker threads when generating on workers.
+	 *
+	 * @param tickBudgetNanosecond
+	 * Most time each tick can spend swapping chunks in (and generating them
+	 * when not using workers). Cut back automatically while the server is
+	 * slow. At least one chunk is always done.
+	 *
+	 * @param isPersistent
+	 * Save which chunks are done in the dimension's save folder so a run can
+	 * be resumed after a restart. Otherwise it's only kept in memory.
+	 */
+	public ChunkRegenerator(WorldServer worldServer, boolean isWorkerGenerate, int workerListSize,
+			long tickBudgetNanosecond, boolean isPersistent) {
 		this.worldServer = worldServer;
+
+		if (isPersistent) {
+			generatedList = ChunkRegionBitmapStore.of(StoragePath
+					.combine(worldServer.getChunkSaveLocation().getPath(), GENERATED_FOLDER));
+		} else {
+			generatedList = new ChunkPositionList();
+		}
+
+		this.workerListSize = Math.max(workerListSize, 1);
+		this.pendingListSizeMaximum = this.workerListSize * 2;
+		this.budget = TickBudgetAdaptive.of(tickBudgetNanosecond);
+
+		if (isWorkerGenerate) {
+			workerPool = workerPoolCreate();
+		}
+	}
+
+	private ExecutorService workerPoolCreate() {
+		AtomicInteger threadId = new AtomicInteger();
+
+		ThreadPoolExecutor result = new ThreadPoolExecutor(workerListSize, workerListSize, 30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), runnable -> {
+					Thread thread = new Thread(runnable, "Chunk Regenerator " + threadId.incrementAndGet());
+
+					// don't keep the server process alive
+					thread.setDaemon(true);
+
+					return thread;
+				});
+
+		result.allowCoreThreadTimeOut(true);
+
+		return result;
+	}
+
+	public boolean isWorkerGenerate() {
+		return workerPool != null;
+	}
+
+	// call when the world unloads
+	public void close() {
+		stop();
+
+		if (workerPool != null) {
+			workerPool.shutdownNow();
+			workerPool = null;
+		}
+
+		if (workerPoolDrain != null) {
+			workerPoolDrain.shutdownNow();
+			workerPoolDrain = null;
+		}
 	}
 
 	public boolean isActiveGet() {
 		return isActive;
 	}
 
-	// restarts regardless of current state
+	// restarts regardless of current state, forgets any chunks already done
 	public void restart() {
+		generatedList.clear();
+
+		resume();
+	}
+
+	// carries on from the chunks already done, same as restart if they
+	// aren't saved
+	public void resume() {
 		isActive = true;
 
-		generatedList.clear();
-		serverTickCounter = 0;
+		runId.incrementAndGet();
+
+		pendingList.clear();
+		resultList.clear();
+		playerCursor = 0;
 	}
 
 	public void stop() {
 		isActive = false;
 
-		// clear it again so you aren't carrying around useless memory
-		generatedList.clear();
+		runId.incrementAndGet();
+
+		// Let go of it so you aren't carrying around useless memory. Saved
+		// chunks stay saved for resume().
+		generatedList.close();
+		pendingList.clear();
+		resultList.clear();
 	}
 
 	public void setGenerated(ChunkPosSortable position) {
@@ -54,25 +201,16 @@ public class ChunkRegenerator {
 			return;
 		}
 
-		generatedList.addUnique(position);
+		generatedList.addUnique(position.x, position.z);
 	}
 
+	// first chunk not done yet, walking outward ring by ring
 	public ChunkPosSortable takeClosest(ChunkPosSortable position, int radius) {
-		for (int ring = 0; ring <= radius; ring++) {
-			int x1 = ring * -1;
-			int x2 = ring * 1;
-			int z1 = ring * -1;
-			int z2 = ring * 1;
-
-			for (int x = x1; x <= x2; x++) {
-				for (int z = z1; z <= z2; z++) {
-					ChunkPosSortable candidatePosition = new ChunkPosSortable(position.x + x,
-							position.z + z);
-
-					if (!generatedList.contains(candidatePosition)) {
-						return candidatePosition;
-					}
-				}
+		spiral.reset(position.x, position.z, radius);
+
+		while (spiral.next()) {
+			if (!generatedList.contains(spiral.x(), spiral.z()) && !pendingList.contains(spiral.x(), spiral.z())) {
+				return new ChunkPosSortable(spiral.x(), spiral.z());
 			}
 		}
 
@@ -92,26 +230,60 @@ public class ChunkRegenerator {
 		}
 	}
 
+	// generate and swap in straight away on this thread
 	protected void regenerate(ChunkPos chunkPosition) {
-		Chunk oldChunk = worldServer.getChunkFromChunkCoords(chunkPosition.x, chunkPosition.z);
-
 		Chunk newChunk = worldServer.getChunkProvider().chunkGenerator.generateChunk(chunkPosition.x,
 				chunkPosition.z);
 
+		commit(chunkPosition, newChunk);
+	}
+
+	// hand a chunk to the workers, the result is swapped in by tick()
+	protected void regenerateWorker(ChunkPos chunkPosition) {
+		pendingList.addUnique(chunkPosition.x, chunkPosition.z);
+
+		int runIdSubmit = runId.get();
+		IChunkGenerator generator = worldServer.getChunkProvider().chunkGenerator;
+
+		workerPool.execute(() -> {
+			if (runId.get() != runIdSubmit) {
+				// stopped while waiting
+				return;
+			}
+
+			try {
+				Chunk newChunk = generator.generateChunk(chunkPosition.x, chunkPosition.z);
+
+				resultList.add(ChunkRegeneratorResult.of(runIdSubmit, chunkPosition, newChunk));
+			} catch (Throwable exception) {
+				// errors too, otherwise the chunk would stay pending for good
+				resultList.add(ChunkRegeneratorResult.ofError(runIdSubmit, chunkPosition, exception));
+			}
+		});
+	}
+
+	// main thread only
+	protected void commit(ChunkPos chunkPosition, Chunk newChunk) {
+		Chunk oldChunk = worldServer.getChunkFromChunkCoords(chunkPosition.x, chunkPosition.z);
+
 
 		// just swap storage arrays
 		oldChunk.setStorageArrays(newChunk.getBlockStorageArray());
 
-		// send new chunk to all clients
-		SPacketChunkData packet = new SPacketChunkData(newChunk, 65535);
-		worldServer.getMinecraftServer().getPlayerList().sendPacketToAllPlayers(packet);
+		// Send the new chunk only to players watching it. The packet encodes the
+		// chunk when it's created so every player shares that one copy.
+		PlayerChunkMapEntry entry = worldServer.getPlayerChunkMap().getEntry(chunkPosition.x, chunkPosition.z);
+		if (entry != null) {
+			// players still waiting for the chunk get the new storage anyway
+			entry.sendPacket(new SPacketChunkData(newChunk, 65535));
+		}
 
 		// won't save to disk without this
 		BlockPos basePosition = chunkPosition.getBlock(0, 0, 0);
 		worldServer.markChunkDirty(new BlockPos(basePosition.getX(), 0, basePosition.getZ()), null);
 
 		// whitelist chunk so it doesn't get regenerated again
-		generatedList.addUnique(new ChunkPosSortable(chunkPosition));
+		generatedList.addUnique(chunkPosition.x, chunkPosition.z);
 
 		// fix player positions so they are not squashed when new chunk arrives
 
@@ -144,32 +316,176 @@ public class ChunkRegenerator {
 		}
 	}
 
+	// call from ServerTickEvent in Phase.END, see TickBudgetAdaptive.update()
 	public void tick() {
 		if (!isActive) {
 			return;
 		}
 
-		serverTickCounter++;
-		if (serverTickCounter < TICK_DELAY) {
+		long timeStart = System.nanoTime();
+
+		tickRun(timeStart + budget.update(worldServer.getMinecraftServer()));
+
+		// not part of the server's own tick time
+		budget.workAdd(System.nanoTime() - timeStart);
+	}
+
+	private void tickRun(long timeEnd) {
+		if (workerPoolDrain != null) {
+			if (!workerPoolDrain.isTerminated()) {
+				// generator is still in use off the main thread
+				return;
+			}
+
+			workerPoolDrain = null;
+
+			// Everything the old pool had was discarded, let those chunks be
+			// picked again on the main thread.
+			pendingList.clear();
+			resultList.clear();
+		}
+
+		resultCommit(timeEnd);
+
+		if (budget.isOverload()) {
+			// server is behind, don't start anything new
 			return;
 		}
 
-		serverTickCounter = 0;
+		schedule(timeEnd);
+	}
 
-		// regenerate 1 chunk for each player
+	// Round robin over players, one chunk per player per turn, until out of
+	// time or nobody has anything left nearby. The cursor carries over
+	// between ticks so players late in the list aren't starved.
+	private void schedule(long timeEnd) {
 		List<EntityPlayerMP> playerList = playerGetAll(worldServer);
-		
-		for (EntityPlayerMP player : playerList) {
-			ChunkPosSortable playerChunkPosition = new ChunkPosSortable(player.chunkCoordX, player.chunkCoordZ);
-			
-			ChunkPosSortable closestChunk = takeClosest(playerChunkPosition, 3);////
-			if (closestChunk == null) {
-				// no old chunks nearby, don't need to do anything for this player
+		int playerListSize = playerList.size();
+
+		// players in a row that had nothing to do
+		int idleListSize = 0;
+
+		// main thread always gets one chunk so a small budget can't stall it
+		boolean isFirst = true;
+
+		while (idleListSize < playerListSize) {
+			if (isWorkerGenerate()) {
+				if (pendingList.size() >= pendingListSizeMaximum) {
+					// workers are behind, try again next tick
+					return;
+				}
+			} else if (!isFirst && System.nanoTime() > timeEnd) {
 				return;
 			}
-	
+
+			playerCursor = playerCursor % playerListSize;
+			EntityPlayerMP player = playerList.get(playerCursor);
+			playerCursor++;
+
+			ChunkPosSortable chunkPosition = takePreferred(player, PLAYER_RADIUS);
+			if (chunkPosition == null) {
+				// no old chunks nearby, don't need to do anything for this player
+				idleListSize++;
+				continue;
+			}
+
+			idleListSize = 0;
+			isFirst = false;
+
 			// automatically whitelisted
-			regenerate(closestChunk);
+			if (isWorkerGenerate()) {
+				regenerateWorker(chunkPosition);
+			} else {
+				regenerate(chunkPosition);
+			}
+		}
+	}
+
+	// Best chunk near the player that hasn't been done. Closer is better and
+	// chunks in front count as half the distance, behind as one and a half.
+	private ChunkPosSortable takePreferred(EntityPlayerMP player, int radius) {
+		double yaw = Math.toRadians(player.rotationYaw);
+		double forwardX = -Math.sin(yaw);
+		double forwardZ = Math.cos(yaw);
+
+		int bestX = 0;
+		int bestZ = 0;
+		double bestScore = Double.MAX_VALUE;
+
+		spiral.reset(player.chunkCoordX, player.chunkCoordZ, radius);
+
+		while (spiral.next()) {
+			int ring = spiral.ring();
+
+			// nothing this far out can score better than half its distance
+			if (bestScore <= ring * ring * 0.5d) {
+				break;
+			}
+
+			int chunkX = spiral.x();
+			int chunkZ = spiral.z();
+
+			if (generatedList.contains(chunkX, chunkZ) || pendingList.contains(chunkX, chunkZ)) {
+				continue;
+			}
+
+			int x = chunkX - player.chunkCoordX;
+			int z = chunkZ - player.chunkCoordZ;
+
+			double distanceSquare = x * x + z * z;
+			double score = 0d;
+
+			if (distanceSquare > 0d) {
+				double facing = (x * forwardX + z * forwardZ) / Math.sqrt(distanceSquare);
+
+				score = distanceSquare * (1d - facing * 0.5d);
+			}
+
+			if (score < bestScore) {
+				bestX = chunkX;
+				bestZ = chunkZ;
+				bestScore = score;
+			}
+		}
+
+		if (bestScore == Double.MAX_VALUE) {
+			return null;
+		}
+
+		return new ChunkPosSortable(bestX, bestZ);
+	}
+
+	// swap in chunks the workers have finished, always at least one
+	private void resultCommit(long timeEnd) {
+		ChunkRegeneratorResult result;
+
+		while ((result = resultList.poll()) != null) {
+			if (result.runId != runId.get()) {
+				// from before a restart
+				continue;
+			}
+
+			if (result.error != null) {
+				// Generator isn't safe off the main thread after all. Ignore
+				// everything the pool has made or is still making, it may have
+				// been corrupted by the same shared state. Chunks stay pending
+				// until the pool has stopped, see tick().
+				runId.incrementAndGet();
+
+				workerPool.shutdownNow();
+				workerPoolDrain = workerPool;
+				workerPool = null;
+
+				return;
+			}
+
+			pendingList.take(result.position.x, result.position.z);
+
+			commit(result.position, result.chunk);
+
+			if (System.nanoTime() > timeEnd) {
+				break;
+			}
 		}
 	}
 
@@ -191,7 +507,7 @@ public class ChunkRegenerator {
 			return false;
 		}
 		else {
-			restart();
+			resume();
 			return true;
 		}
 	}
@@ -0,0 +1,31 @@
+package mattjohns.minecraft.common.chunk;
+
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.Chunk;
+
+import mattjohns.common.immutable.Immutable;
+
+// chunk generated by a ChunkRegenerator worker, waiting to be swapped in
+public class ChunkRegeneratorResult extends Immutable<ChunkRegeneratorResult> {
+	public final int runId;
+	public final ChunkPos position;
+
+	// null if generation failed
+	public final Chunk chunk;
+	public final Throwable error;
+
+	protected ChunkRegeneratorResult(int runId, ChunkPos position, Chunk chunk, Throwable error) {
+		this.runId = runId;
+		this.position = position;
+		this.chunk = chunk;
+		this.error = error;
+	}
+
+	public static ChunkRegeneratorResult of(int runId, ChunkPos position, Chunk chunk) {
+		return new ChunkRegeneratorResult(runId, position, chunk, null);
+	}
+
+	public static ChunkRegeneratorResult ofError(int runId, ChunkPos position, Throwable error) {
+		return new ChunkRegeneratorResult(runId, position, null, error);
+	}
+}
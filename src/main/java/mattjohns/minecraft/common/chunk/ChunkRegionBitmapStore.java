@@ -0,0 +1,238 @@
+package mattjohns.minecraft.common.chunk;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import mattjohns.common.list.LongObjectHashMap;
+import mattjohns.common.storage.StorageDirectory;
+import mattjohns.common.storage.StorageException;
+import mattjohns.common.storage.StoragePath;
+
+/**
+ * Chunk positions saved to disk, one 128 byte bitmap file per 32x32 chunk
+ * region. Files are memory mapped so a lookup is a bit test and the
+ * operating system writes changes out in its own time.
+ *
+ * Only the most recently used regions stay mapped, or remembered as having no
+ * file. Dropping a mapping loses nothing since its changes are already in the
+ * file. If a file can't be created the region is kept in memory only, for
+ * good, and isStoreValid() becomes false.
+ *
+ * Not thread safe.
+ */
+public class ChunkRegionBitmapStore implements ChunkPositionSet {
+	protected static final int RegionShift = 5;
+	protected static final int RegionMask = (1 << RegionShift) - 1;
+
+	// one bit per chunk
+	protected static final int FileSize = (1 << RegionShift) * (1 << RegionShift) / 8;
+
+	protected static final String FilePrefix = "r.";
+	protected static final String FileExtension = ".bin";
+
+	// region has no file yet
+	protected static final ByteBuffer RegionEmpty = ByteBuffer.allocate(0);
+
+	// least recently used regions are dropped once this is reached
+	protected static final int RegionListSizeMaximum = 256;
+
+	protected String directory;
+
+	// mapped or RegionEmpty
+	protected LinkedHashMap<Long, ByteBuffer> regionMap = new LinkedHashMap<Long, ByteBuffer>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, ByteBuffer> eldest) {
+			return size() > RegionListSizeMaximum;
+		}
+	};
+
+	// regions whose file couldn't be created, can't be dropped
+	protected LongObjectHashMap<ByteBuffer> regionMemoryMap = LongObjectHashMap.of();
+
+	protected boolean isStoreValid = true;
+
+	protected ChunkRegionBitmapStore(String directory) {
+		this.directory = directory;
+	}
+
+	public static ChunkRegionBitmapStore of(String directory) {
+		return new ChunkRegionBitmapStore(directory);
+	}
+
+	@Override
+	public boolean contains(int x, int z) {
+		ByteBuffer region = regionGet(x >> RegionShift, z >> RegionShift);
+		if (region == RegionEmpty) {
+			return false;
+		}
+
+		int bit = bitIndex(x, z);
+
+		return (region.get(bit >>> 3) & (1 << (bit & 7))) != 0;
+	}
+
+	@Override
+	public void addUnique(int x, int z) {
+		int regionX = x >> RegionShift;
+		int regionZ = z >> RegionShift;
+
+		ByteBuffer region = regionGet(regionX, regionZ);
+		if (region == RegionEmpty) {
+			region = regionCreate(regionX, regionZ);
+		}
+
+		int bit = bitIndex(x, z);
+		int byteIndex = bit >>> 3;
+
+		region.put(byteIndex, (byte)(region.get(byteIndex) | (1 << (bit & 7))));
+	}
+
+	// Files are zeroed rather than deleted, a file that's still mapped can't be
+	// deleted on Windows and java can't unmap it.
+	@Override
+	public void clear() {
+		for (ByteBuffer region : regionMap.values()) {
+			bufferZero(region);
+		}
+
+		regionMemoryMap.forEachValue(region -> bufferZero(region));
+
+		File[] fileList = new File(directory).listFiles();
+		if (fileList == null) {
+			return;
+		}
+
+		for (File file : fileList) {
+			String name = file.getName();
+
+			if (name.startsWith(FilePrefix) && name.endsWith(FileExtension) && !isRegionMapped(name)) {
+				fileZero(file);
+			}
+		}
+	}
+
+	// mappings are let go rather than unmapped, java has no way to force it
+	@Override
+	public void close() {
+		regionMap.clear();
+		regionMemoryMap.clear();
+	}
+
+	// false if some regions couldn't be saved
+	public boolean isStoreValid() {
+		return isStoreValid;
+	}
+
+	protected ByteBuffer regionGet(int regionX, int regionZ) {
+		long key = regionKey(regionX, regionZ);
+
+		ByteBuffer result = regionMap.get(key);
+		if (result == null) {
+			result = regionMemoryMap.get(key);
+		}
+
+		if (result == null) {
+			File file = new File(path(regionX, regionZ));
+
+			result = file.exists() ? regionMap(file) : RegionEmpty;
+
+			regionMap.put(key, result);
+		}
+
+		return result;
+	}
+
+	protected ByteBuffer regionCreate(int regionX, int regionZ) {
+		ByteBuffer result;
+
+		try {
+			StorageDirectory.createIfNotExist(directory);
+
+			result = regionMap(new File(path(regionX, regionZ)));
+		} catch (StorageException exception) {
+			result = RegionEmpty;
+		}
+
+		if (result == RegionEmpty) {
+			// keep going without saving this region
+			isStoreValid = false;
+			result = ByteBuffer.allocate(FileSize);
+
+			regionMap.remove(regionKey(regionX, regionZ));
+			regionMemoryMap.put(regionKey(regionX, regionZ), result);
+
+			return result;
+		}
+
+		regionMap.put(regionKey(regionX, regionZ), result);
+
+		return result;
+	}
+
+	// RegionEmpty if it can't be mapped
+	protected ByteBuffer regionMap(File file) {
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			// new or from an older version
+			if (randomAccessFile.length() != FileSize) {
+				randomAccessFile.setLength(FileSize);
+			}
+
+			// stays valid after the channel is closed
+			return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, FileSize);
+		} catch (IOException exception) {
+			isStoreValid = false;
+			return RegionEmpty;
+		}
+	}
+
+	// name is a region file name, already zeroed through its mapping if so
+	protected boolean isRegionMapped(String name) {
+		String[] partList = name.substring(FilePrefix.length(), name.length() - FileExtension.length()).split("\\.");
+		if (partList.length != 2) {
+			return false;
+		}
+
+		try {
+			ByteBuffer region = regionMap.get(regionKey(Integer.parseInt(partList[0]), Integer.parseInt(partList[1])));
+
+			return region != null && region != RegionEmpty;
+		} catch (NumberFormatException exception) {
+			return false;
+		}
+	}
+
+	protected static void bufferZero(ByteBuffer region) {
+		for (int i = 0; i < region.capacity(); i++) {
+			region.put(i, (byte)0);
+		}
+	}
+
+	protected void fileZero(File file) {
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			randomAccessFile.seek(0);
+			randomAccessFile.write(new byte[FileSize]);
+			randomAccessFile.setLength(FileSize);
+		} catch (IOException exception) {
+			isStoreValid = false;
+		}
+	}
+
+	protected String path(int regionX, int regionZ) {
+		return StoragePath.combine(directory, FilePrefix + regionX + "." + regionZ + FileExtension);
+	}
+
+	protected static int bitIndex(int x, int z) {
+		return ((z & RegionMask) << RegionShift) | (x & RegionMask);
+	}
+
+	protected static long regionKey(int regionX, int regionZ) {
+		return ((long)regionX << 32) | (regionZ & 0xffffffffL);
+	}
+}
@@ -0,0 +1,181 @@
+package mattjohns.minecraft.common.chunk;
+
+import net.minecraft.util.math.ChunkPos;
+
+import mattjohns.common.list.LongObjectHashMap;
+
+/**
+ * Chunk positions grouped into 32x32 chunk regions, each a 1024 bit bitset,
+ * so nearby positions can be found without looking at the whole list.
+ *
+ * Regions are kept once created, even if they become empty, until clear().
+ * Nothing allocates apart from new regions and region map growth.
+ *
+ * Not thread safe.
+ */
+public class ChunkRegionIndex {
+	// returned when nothing is found, ChunkPos.asLong() of a chunk at the very
+	// edge of the int range that can't exist
+	public static final long PositionNone = Long.MIN_VALUE;
+
+	protected static final int RegionShift = 5;
+	protected static final int RegionSize = 1 << RegionShift;
+	protected static final int RegionMask = RegionSize - 1;
+
+	// 1024 bits, two rows of 32 chunks per word
+	protected static final int WordListSize = RegionSize * RegionSize / 64;
+
+	// region coordinate to its bits
+	protected LongObjectHashMap<long[]> regionMap = LongObjectHashMap.of();
+
+	protected ChunkRegionIndex() {
+	}
+
+	public static ChunkRegionIndex of() {
+		return new ChunkRegionIndex();
+	}
+
+	public boolean contains(int x, int z) {
+		long[] wordList = regionGet(x >> RegionShift, z >> RegionShift);
+		if (wordList == null) {
+			return false;
+		}
+
+		int bit = bitIndex(x, z);
+
+		return (wordList[bit >>> 6] & (1L << bit)) != 0;
+	}
+
+	public void add(int x, int z) {
+		long[] wordList = regionGetOrCreate(x >> RegionShift, z >> RegionShift);
+
+		int bit = bitIndex(x, z);
+
+		wordList[bit >>> 6] |= 1L << bit;
+	}
+
+	public void remove(int x, int z) {
+		long[] wordList = regionGet(x >> RegionShift, z >> RegionShift);
+		if (wordList == null) {
+			return;
+		}
+
+		int bit = bitIndex(x, z);
+
+		wordList[bit >>> 6] &= ~(1L << bit);
+	}
+
+	public void clear() {
+		regionMap.clear();
+	}
+
+	/**
+	 * Closest position by straight line distance within a square.
+	 *
+	 * Regions are walked in rings outward from the centre's region and the
+	 * walk stops once no region further out could hold anything closer.
+	 *
+	 * @return ChunkPos.asLong() of the position or PositionNone.
+	 */
+	public long closest(int centreX, int centreZ, int radius) {
+		int x1 = centreX - radius;
+		int x2 = centreX + radius;
+		int z1 = centreZ - radius;
+		int z2 = centreZ + radius;
+
+		int centreRegionX = centreX >> RegionShift;
+		int centreRegionZ = centreZ >> RegionShift;
+
+		// rings past this are outside the square
+		int ringMaximum = Math.max(
+				Math.max(centreRegionX - (x1 >> RegionShift), (x2 >> RegionShift) - centreRegionX),
+				Math.max(centreRegionZ - (z1 >> RegionShift), (z2 >> RegionShift) - centreRegionZ));
+
+		long closestPosition = PositionNone;
+		long closestDistanceSquare = Long.MAX_VALUE;
+
+		for (int ring = 0; ring <= ringMaximum; ring++) {
+			// every chunk in this ring is at least this far away on one axis
+			if (ring > 0) {
+				long distanceMinimum = (long)(ring - 1) * RegionSize + 1;
+
+				if (closestDistanceSquare <= distanceMinimum * distanceMinimum) {
+					break;
+				}
+			}
+
+			for (int regionX = centreRegionX - ring; regionX <= centreRegionX + ring; regionX++) {
+				boolean isEdgeX = regionX == centreRegionX - ring || regionX == centreRegionX + ring;
+
+				// only the ring itself, the inside was done already
+				int regionZStep = isEdgeX ? 1 : Math.max(ring * 2, 1);
+
+				for (int regionZ = centreRegionZ - ring; regionZ <= centreRegionZ + ring; regionZ += regionZStep) {
+					long[] wordList = regionGet(regionX, regionZ);
+					if (wordList == null) {
+						continue;
+					}
+
+					// square clipped to the region
+					int regionBaseX = regionX << RegionShift;
+					int regionBaseZ = regionZ << RegionShift;
+
+					int localX1 = Math.max(x1 - regionBaseX, 0);
+					int localX2 = Math.min(x2 - regionBaseX, RegionMask);
+					int localZ1 = Math.max(z1 - regionBaseZ, 0);
+					int localZ2 = Math.min(z2 - regionBaseZ, RegionMask);
+
+					if (localX1 > localX2 || localZ1 > localZ2) {
+						continue;
+					}
+
+					long rowMask = ((1L << (localX2 - localX1 + 1)) - 1) << localX1;
+
+					for (int localZ = localZ1; localZ <= localZ2; localZ++) {
+						long row = (wordList[localZ >>> 1] >>> ((localZ & 1) << 5)) & rowMask;
+
+						while (row != 0) {
+							int localX = Long.numberOfTrailingZeros(row);
+							row &= row - 1;
+
+							long deltaX = regionBaseX + localX - centreX;
+							long deltaZ = regionBaseZ + localZ - centreZ;
+							long distanceSquare = deltaX * deltaX + deltaZ * deltaZ;
+
+							if (distanceSquare < closestDistanceSquare) {
+								closestDistanceSquare = distanceSquare;
+								closestPosition = ChunkPos.asLong(regionBaseX + localX, regionBaseZ + localZ);
+							}
+						}
+					}
+				}
+			}
+		}
+
+		return closestPosition;
+	}
+
+	protected static int bitIndex(int x, int z) {
+		return ((z & RegionMask) << RegionShift) | (x & RegionMask);
+	}
+
+	protected static long regionKey(int regionX, int regionZ) {
+		return ((long)regionX << 32) | (regionZ & 0xffffffffL);
+	}
+
+	protected long[] regionGet(int regionX, int regionZ) {
+		return regionMap.get(regionKey(regionX, regionZ));
+	}
+
+	protected long[] regionGetOrCreate(int regionX, int regionZ) {
+		long key = regionKey(regionX, regionZ);
+
+		long[] result = regionMap.get(key);
+		if (result == null) {
+			result = new long[WordListSize];
+			regionMap.put(key, result);
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,162 @@
+package mattjohns.minecraft.common.chunk;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.minecraft.block.Block;
+import net.minecraft.init.Blocks;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+/**
+ * Answers "does this chunk section contain block X at all" so callers can skip
+ * reading every block in a section that can't match.
+ *
+ * Each section gets a bit for every block id, built the first time the section
+ * is asked about. Block writes don't all notify anything (flags 0/1/4, world
+ * generation decorating an unpopulated chunk), so a summary is only trusted
+ * while its chunk has nothing waiting to be saved. Any write marks the chunk
+ * as needing a save, and summaries of such a chunk are dropped and not built
+ * again until it has been saved. Saving has to drop them too (see
+ * chunkRemove()) since the chunk looks unmodified again afterwards. A "not
+ * present" answer is never stale, "present" can be wrong.
+ *
+ * Sections are matched by identity. Once a chunk is unloaded and loaded again
+ * its sections are new objects and get new summaries.
+ *
+ * Not thread safe, use one per world.
+ */
+public class ChunkSectionBlockIndex {
+	// forge limit for block ids
+	protected static final int BlockIdListSize = 4096;
+
+	protected static final int SectionSize = 16;
+
+	// least recently used sections are dropped once this is reached
+	protected final int sectionListSizeMaximum;
+
+	protected LinkedHashMap<ExtendedBlockStorage, long[]> presenceMap;
+
+	protected ChunkSectionBlockIndex(int sectionListSizeMaximum) {
+		this.sectionListSizeMaximum = sectionListSizeMaximum;
+
+		assert this.sectionListSizeMaximum > 0;
+
+		presenceMap = new LinkedHashMap<ExtendedBlockStorage, long[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ExtendedBlockStorage, long[]> eldest) {
+				return size() > ChunkSectionBlockIndex.this.sectionListSizeMaximum;
+			}
+		};
+	}
+
+	public static ChunkSectionBlockIndex of(int sectionListSizeMaximum) {
+		return new ChunkSectionBlockIndex(sectionListSizeMaximum);
+	}
+
+	// builds the summary if it doesn't exist yet
+	public boolean isPresent(Chunk chunk, ExtendedBlockStorage section, Block block) {
+		if (section == Chunk.NULL_BLOCK_STORAGE || section.isEmpty()) {
+			// nothing but air
+			return block == Blocks.AIR;
+		}
+
+		if (!isTrusted(chunk, section)) {
+			return true;
+		}
+
+		long[] presence = presenceMap.get(section);
+		if (presence == null) {
+			presence = presenceDerive(section);
+			presenceMap.put(section, presence);
+		}
+
+		return isPresent(presence, block);
+	}
+
+	// True only if the section has a summary and it doesn't have the block.
+	// Never builds anything, for callers that will read the whole section anyway.
+	public boolean isAbsentKnown(Chunk chunk, ExtendedBlockStorage section, Block block) {
+		if (!isTrusted(chunk, section)) {
+			return false;
+		}
+
+		long[] presence = presenceMap.get(section);
+		if (presence == null) {
+			return false;
+		}
+
+		return !isPresent(presence, block);
+	}
+
+	// call when a chunk unloads or is saved
+	public void chunkRemove(Chunk chunk) {
+		for (ExtendedBlockStorage section : chunk.getBlockStorageArray()) {
+			if (section != Chunk.NULL_BLOCK_STORAGE) {
+				presenceMap.remove(section);
+			}
+		}
+	}
+
+	public void clear() {
+		presenceMap.clear();
+	}
+
+	// False if blocks in the chunk may have changed without the index seeing it.
+	// Drops the section's summary in that case.
+	protected boolean isTrusted(Chunk chunk, ExtendedBlockStorage section) {
+		// Written since the last save. Also true for some unmodified chunks with
+		// entities in them, which only costs a rebuild.
+		if (chunk.needsSaving(false)) {
+			presenceMap.remove(section);
+			return false;
+		}
+
+		return true;
+	}
+
+	protected long[] presenceDerive(ExtendedBlockStorage section) {
+		long[] result = new long[BlockIdListSize / 64];
+
+		// neighbouring blocks are usually the same so skip the id lookup for runs
+		Block blockPrevious = null;
+
+		for (int y = 0; y < SectionSize; y++) {
+			for (int z = 0; z < SectionSize; z++) {
+				for (int x = 0; x < SectionSize; x++) {
+					Block block = section.get(x, y, z).getBlock();
+
+					if (block != blockPrevious) {
+						presenceAdd(result, block);
+						blockPrevious = block;
+					}
+				}
+			}
+		}
+
+		return result;
+	}
+
+	protected static void presenceAdd(long[] presence, Block block) {
+		int id = Block.getIdFromBlock(block);
+
+		if (id < 0 || id >= BlockIdListSize) {
+			// can't be stored, isPresent() will always say yes for it
+			return;
+		}
+
+		presence[id >>> 6] |= 1L << (id & 63);
+	}
+
+	protected static boolean isPresent(long[] presence, Block block) {
+		int id = Block.getIdFromBlock(block);
+
+		if (id < 0 || id >= BlockIdListSize) {
+			return true;
+		}
+
+		return (presence[id >>> 6] & (1L << (id & 63))) != 0;
+	}
+}
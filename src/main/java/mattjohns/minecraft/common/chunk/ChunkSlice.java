@@ -1,13 +1,20 @@
 package mattjohns.minecraft.common.chunk;
 
+import java.util.Arrays;
+
 import mattjohns.minecraft.common.block.BlockPos2d;
 
 /**
  * A 16x16 array of the given class. Used to store per-column information for a
  * chunk.
+ *
+ * All chunk slices are flat arrays of 256 indexed by index(x, z).
  */
 public class ChunkSlice<T> {
-	private Object[][] array;
+	public static final int Size = 16;
+	public static final int ColumnListSize = Size * Size;
+
+	private Object[] array;
 
 	/**
 	 * allocate() needs to be called to create the array.
@@ -15,16 +22,29 @@ public class ChunkSlice<T> {
 	public ChunkSlice() {
 	}
 
+	// x and z are 0 to 15
+	public static int index(int x, int z) {
+		return (x << 4) | z;
+	}
+
 	/**
 	 * Allocates the memory for the array. Must be called before get() or set()
 	 */
 	public void allocate() {
-		array = new Object[16][16];
+		array = new Object[ColumnListSize];
+	}
+
+	public void clear() {
+		Arrays.fill(array, null);
 	}
 
 	public T get(int x, int y) {
+		return get(index(x, y));
+	}
+
+	public T get(int index) {
 		@SuppressWarnings("unchecked")
-		final T e = (T)array[x][y];
+		final T e = (T)array[index];
 		return e;
 	}
 
@@ -37,6 +57,10 @@ public class ChunkSlice<T> {
 	}
 
 	public void set(int x, int y, T item) {
-		array[x][y] = item;
+		array[index(x, y)] = item;
+	}
+
+	public void set(int index, T item) {
+		array[index] = item;
 	}
 }
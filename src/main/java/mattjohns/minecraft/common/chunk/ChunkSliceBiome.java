@@ -14,29 +14,37 @@ public class ChunkSliceBiome {
 	}
 
 	public void allocate() {
-		array = new Biome[256];
+		array = new Biome[ChunkSlice.ColumnListSize];
 	}
 
 	public void set(BlockPos2d offset, Biome biome) {
-		array[(offset.x * 16) + offset.y] = biome;
+		array[ChunkSlice.index(offset.x, offset.y)] = biome;
 	}
 
 	public Biome get(BlockPos2d offset) {
-		return array[(offset.x * 16) + offset.y];
+		return array[ChunkSlice.index(offset.x, offset.y)];
 	}
 
-	public void copy(ChunkSliceInteger idList, BiomeList fullBiomeList) {
-		for (int x = 0; x < 16; x++) {
-			for (int z = 0; z < 16; z++) {
-				int id = idList.array[x][z];
+	public void set(int x, int z, Biome biome) {
+		array[ChunkSlice.index(x, z)] = biome;
+	}
+
+	public Biome get(int x, int z) {
+		return array[ChunkSlice.index(x, z)];
+	}
 
-				Biome biome = fullBiomeList.get(id);
-				if (biome == null) {
-					///
-				}
+	public void copy(ChunkSliceInteger idList, BiomeList fullBiomeList) {
+		copy(idList.array, fullBiomeList);
+	}
 
-				set(new BlockPos2d(x, z), biome);
-			}
+	/**
+	 * @param idList
+	 * Biome id for each column, indexed by ChunkSlice.index(). Unknown ids give
+	 * a null biome.
+	 */
+	public void copy(int[] idList, BiomeList fullBiomeList) {
+		for (int i = 0; i < ChunkSlice.ColumnListSize; i++) {
+			array[i] = fullBiomeList.get(idList[i]);
 		}
 	}
 }
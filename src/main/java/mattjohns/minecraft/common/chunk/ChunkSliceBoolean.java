@@ -1,15 +1,22 @@
 package mattjohns.minecraft.common.chunk;
 
+import java.util.Arrays;
+
 import mattjohns.minecraft.common.block.BlockPos2d;
 
 /**
- * Effectively ChunkSlice<Boolean> .
+ * Effectively ChunkSlice<Boolean> , stored as a 256 bit bitset.
  */
 public class ChunkSliceBoolean {
-	public boolean[][] array;
+	// bit ChunkSlice.index()
+	public long[] array;
 
 	public void allocate() {
-		array = new boolean[16][16];
+		array = new long[ChunkSlice.ColumnListSize / 64];
+	}
+
+	public void clear() {
+		Arrays.fill(array, 0L);
 	}
 
 	public boolean get(BlockPos2d position) {
@@ -17,7 +24,9 @@ public class ChunkSliceBoolean {
 	}
 
 	public boolean get(int x, int y) {
-		return array[x][y];
+		int index = ChunkSlice.index(x, y);
+
+		return (array[index >>> 6] & (1L << index)) != 0;
 	}
 
 	public void set(BlockPos2d position, boolean item) {
@@ -25,6 +34,23 @@ public class ChunkSliceBoolean {
 	}
 
 	public void set(int x, int y, boolean item) {
-		array[x][y] = item;
+		int index = ChunkSlice.index(x, y);
+
+		if (item) {
+			array[index >>> 6] |= 1L << index;
+		} else {
+			array[index >>> 6] &= ~(1L << index);
+		}
+	}
+
+	// number of columns set
+	public int count() {
+		int result = 0;
+
+		for (long word : array) {
+			result += Long.bitCount(word);
+		}
+
+		return result;
 	}
 }
@@ -1,18 +1,25 @@
 package mattjohns.minecraft.common.chunk;
 
+import java.util.Arrays;
+
 import mattjohns.minecraft.common.block.BlockPos2d;
 
 /**
  * Effectively ChunkSlice<Integer> .
  */
 public class ChunkSliceInteger {
-	public int[][] array;
+	// indexed by ChunkSlice.index()
+	public int[] array;
 
 	public ChunkSliceInteger() {
 	}
 
 	public void allocate() {
-		array = new int[16][16];
+		array = new int[ChunkSlice.ColumnListSize];
+	}
+
+	public void clear() {
+		Arrays.fill(array, 0);
 	}
 
 	public int get(BlockPos2d position) {
@@ -20,7 +27,7 @@ public class ChunkSliceInteger {
 	}
 
 	public int get(int x, int y) {
-		return array[x][y];
+		return array[ChunkSlice.index(x, y)];
 	}
 
 	public void set(BlockPos2d position, int item) {
@@ -28,6 +35,6 @@ public class ChunkSliceInteger {
 	}
 
 	public void set(int x, int y, int item) {
-		array[x][y] = item;
+		array[ChunkSlice.index(x, y)] = item;
 	}
 }
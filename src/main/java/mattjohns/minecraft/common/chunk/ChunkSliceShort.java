@@ -0,0 +1,31 @@
+package mattjohns.minecraft.common.chunk;
+
+import java.util.Arrays;
+
+/**
+ * Effectively ChunkSlice<Short> , half the size of ChunkSliceInteger for
+ * values that fit (heights, ids).
+ */
+public class ChunkSliceShort {
+	// indexed by ChunkSlice.index()
+	public short[] array;
+
+	public ChunkSliceShort() {
+	}
+
+	public void allocate() {
+		array = new short[ChunkSlice.ColumnListSize];
+	}
+
+	public void clear() {
+		Arrays.fill(array, (short)0);
+	}
+
+	public short get(int x, int y) {
+		return array[ChunkSlice.index(x, y)];
+	}
+
+	public void set(int x, int y, short item) {
+		array[ChunkSlice.index(x, y)] = item;
+	}
+}
@@ -0,0 +1,120 @@
+package mattjohns.minecraft.common.chunk;
+
+import net.minecraft.util.math.ChunkPos;
+
+/**
+ * Walks chunk positions outward from a centre, one square ring at a time,
+ * only visiting the edge of each ring. Reuse one instance with reset() so
+ * nothing is allocated.
+ *
+ * <pre>
+ * iterator.reset(x, z, radius);
+ * while (iterator.next()) {
+ *     ... iterator.x(), iterator.z()
+ * }
+ * </pre>
+ */
+public class ChunkSpiralIterator {
+	protected int centreX;
+	protected int centreZ;
+	protected int radius;
+
+	// -1 before the first next()
+	protected int ring;
+
+	// position around the current ring, a ring has 8 * ring cells
+	protected int ringIndex;
+
+	protected int x;
+	protected int z;
+
+	protected ChunkSpiralIterator() {
+		reset(0, 0, -1);
+	}
+
+	public static ChunkSpiralIterator of() {
+		return new ChunkSpiralIterator();
+	}
+
+	public void reset(int centreX, int centreZ, int radius) {
+		this.centreX = centreX;
+		this.centreZ = centreZ;
+		this.radius = radius;
+
+		ring = -1;
+		ringIndex = 0;
+	}
+
+	// false once every ring up to the radius has been visited
+	public boolean next() {
+		if (ring < 0) {
+			if (radius < 0) {
+				return false;
+			}
+
+			ring = 0;
+			x = centreX;
+			z = centreZ;
+
+			return true;
+		}
+
+		ringIndex++;
+
+		if (ringIndex >= ring * 8) {
+			ring++;
+			ringIndex = 0;
+
+			if (ring > radius) {
+				// stay finished
+				ring = radius;
+				ringIndex = ring * 8;
+				return false;
+			}
+		}
+
+		// four sides of 2 * ring cells, clockwise from the low corner
+		int sideLength = ring * 2;
+		int side = ringIndex / sideLength;
+		int step = ringIndex - side * sideLength;
+
+		switch (side) {
+		case 0:
+			x = centreX - ring + step;
+			z = centreZ - ring;
+			break;
+		case 1:
+			x = centreX + ring;
+			z = centreZ - ring + step;
+			break;
+		case 2:
+			x = centreX + ring - step;
+			z = centreZ + ring;
+			break;
+		default:
+			x = centreX - ring;
+			z = centreZ + ring - step;
+			break;
+		}
+
+		return true;
+	}
+
+	public int x() {
+		return x;
+	}
+
+	public int z() {
+		return z;
+	}
+
+	// ChunkPos.asLong() of the current position
+	public long position() {
+		return ChunkPos.asLong(x, z);
+	}
+
+	// distance from the centre on the furthest axis
+	public int ring() {
+		return ring;
+	}
+}
@@ -0,0 +1,92 @@
+package mattjohns.minecraft.common.general;
+
+import net.minecraft.server.MinecraftServer;
+
+/**
+ * Time a piece of background work can use each server tick, cut back when
+ * the server is struggling and slowly given back when it recovers.
+ *
+ * Halves the budget whenever the smoothed tick time is above 90% of a tick
+ * and adds an eighth of the maximum back whenever it's below 70%.
+ */
+public class TickBudgetAdaptive {
+	protected static final double TickNanosecond = 50000000d;
+
+	protected static final double LoadHigh = 0.9d;
+	protected static final double LoadLow = 0.7d;
+
+	// weight of the latest tick in the smoothed tick time
+	protected static final double SmoothWeight = 0.2d;
+
+	protected long budgetMaximum;
+	protected long budgetMinimum;
+	protected long budget;
+
+	protected double tickNanosecondSmooth = 0d;
+
+	// own work since the last update, see workAdd()
+	protected long workNanosecond = 0;
+
+	protected TickBudgetAdaptive(long budgetMaximum, long budgetMinimum) {
+		this.budgetMaximum = budgetMaximum;
+		this.budgetMinimum = budgetMinimum;
+
+		budget = budgetMaximum;
+	}
+
+	public static TickBudgetAdaptive of(long budgetMaximumNanosecond) {
+		return new TickBudgetAdaptive(budgetMaximumNanosecond, Math.max(budgetMaximumNanosecond / 16, 1));
+	}
+
+	/**
+	 * Call once per tick before doing the work, from ServerTickEvent in
+	 * Phase.END.
+	 *
+	 * @return Budget for this tick in nanoseconds.
+	 */
+	public long update(MinecraftServer server) {
+		// At Phase.END the counter has been incremented and the tick that just
+		// ran is already written at tickCounter % length. (At Phase.START the
+		// counter isn't incremented yet, so the same index is the tick before.)
+		int tickIndex = Math.floorMod(server.getTickCounter(), server.tickTimeArray.length);
+		long tickNanosecond = server.tickTimeArray[tickIndex] + workNanosecond;
+		workNanosecond = 0;
+
+		if (tickNanosecondSmooth == 0d) {
+			tickNanosecondSmooth = tickNanosecond;
+		} else {
+			tickNanosecondSmooth += (tickNanosecond - tickNanosecondSmooth) * SmoothWeight;
+		}
+
+		if (isOverload()) {
+			budget = Math.max(budget / 2, budgetMinimum);
+		} else if (tickNanosecondSmooth < TickNanosecond * LoadLow) {
+			budget = Math.min(budget + budgetMaximum / 8, budgetMaximum);
+		}
+
+		return budget;
+	}
+
+	/**
+	 * Time spent on the work itself. The server writes its tick time before
+	 * Phase.END handlers run, so work done there never shows up in it and is
+	 * added to the next update's tick time instead.
+	 */
+	public void workAdd(long nanosecond) {
+		workNanosecond += nanosecond;
+	}
+
+	// server is close to falling behind, only do what's essential
+	public boolean isOverload() {
+		return tickNanosecondSmooth > TickNanosecond * LoadHigh;
+	}
+
+	public long budget() {
+		return budget;
+	}
+
+	// smoothed milliseconds per tick
+	public double tickMillisecond() {
+		return tickNanosecondSmooth / 1000000d;
+	}
+}
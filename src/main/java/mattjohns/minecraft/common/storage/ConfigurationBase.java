@@ -1,13 +1,20 @@
 package mattjohns.minecraft.common.storage;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Objects;
 import java.util.Optional;
 
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.common.config.ConfigCategory;
 import net.minecraftforge.common.config.Configuration;
+import net.minecraftforge.common.config.Property;
 import net.minecraftforge.fml.common.Loader;
 
 import mattjohns.common.storage.StorageDirectory;
 import mattjohns.common.storage.StorageException;
+import mattjohns.common.storage.StorageFile;
 import mattjohns.common.storage.StoragePath;
 import mattjohns.minecraft.common.log.Log;
 
@@ -21,6 +28,14 @@ public abstract class ConfigurationBase {
 	protected String filename;
 	protected Optional<String> subFolder;
 	protected ConfigurationElementList elementList;
+
+	// Replaced whenever a value changes, never modified. Read this rather than
+	// the forge configuration from code that might not be on the main thread.
+	protected volatile ConfigurationSnapshot snapshot;
+
+	// Each element's value as text, as it is in the file. No entry if the key
+	// isn't in the file yet. Used to only save when something really changed.
+	protected HashMap<ConfigurationElement<?>, String> storedTextMap = new HashMap<>();
 	
 	protected Log log;
 
@@ -51,8 +66,10 @@ public abstract class ConfigurationBase {
 		
 		copyFromStoragePost();
 
-		// re-save it as it might have changed during validation etc..
+		// re-save if validation etc. changed anything or keys were missing
 		copyToStorage();
+
+		snapshotDerive();
 	}
 
 	// anything that needs to be done after loading (before re-save)
@@ -81,7 +98,17 @@ public abstract class ConfigurationBase {
 
 		newForgeConfiguration.load();
 
+		storedTextMap.clear();
+
 		for (ConfigurationElement<?> element : elementList) {
+			// text before forge gets a chance to replace bad values with the
+			// default
+			if (newForgeConfiguration.hasKey(element.category(), element.key())) {
+				Property property = newForgeConfiguration.getCategory(element.category()).get(element.key());
+
+				storedTextMap.put(element, propertyText(property));
+			}
+
 			element.propertyGetOrCreate(newForgeConfiguration);
 		}
 
@@ -92,17 +119,75 @@ public abstract class ConfigurationBase {
 	protected void validateAndFix() {
 	}
 
+	// only writes the file if an element differs from what's in it
 	public void copyToStorage() {
-		for (ConfigurationElement<?> element : elementList) {
-			element.propertyGetOrCreate(forgeConfiguration);
+		if (elementChangeStoredList().isEmpty()) {
+			return;
 		}
 
 		// set order
 		sortOrderSet();
 
-		if (forgeConfiguration.hasChanged()) {
-			forgeConfiguration.save();
+		try {
+			forgeCopyToStorageAtomic();
+		} catch (StorageException exception) {
+			log.error("Failed to save configuration.  " + exception.getMessage());
+			return;
+		}
+
+		for (ConfigurationElement<?> element : elementList) {
+			storedTextMap.put(element, propertyText(element.propertyGetOrCreate(forgeConfiguration)));
+		}
+	}
+
+	// elements with a value that isn't in the file yet
+	public ArrayList<ConfigurationElement<?>> elementChangeStoredList() {
+		ArrayList<ConfigurationElement<?>> result = new ArrayList<>();
+
+		for (ConfigurationElement<?> element : elementList) {
+			String text = propertyText(element.propertyGetOrCreate(forgeConfiguration));
+
+			if (!Objects.equals(storedTextMap.get(element), text)) {
+				result.add(element);
+			}
+		}
+
+		return result;
+	}
+
+	// Forge writes straight over the file, so write a copy next to it and
+	// move that into place. Anything else in the file (e.g. keys from older
+	// versions) is copied too.
+	protected void forgeCopyToStorageAtomic() throws StorageException {
+		String path = forgeConfiguration.getConfigFile().getPath();
+		String temporaryPath = path + ".tmp";
+
+		// left over from a failed save, would be loaded by the constructor
+		StorageFile.delete(temporaryPath);
+
+		Configuration temporaryConfiguration = new Configuration(new File(temporaryPath));
+
+		for (String categoryName : forgeConfiguration.getCategoryNames()) {
+			ConfigCategory category = forgeConfiguration.getCategory(categoryName);
+			ConfigCategory temporaryCategory = temporaryConfiguration.getCategory(categoryName);
+
+			temporaryCategory.putAll(category);
+			temporaryCategory.setComment(category.getComment());
+			temporaryCategory.setPropertyOrder(category.getPropertyOrder());
 		}
+
+		temporaryConfiguration.save();
+
+		StorageFile.replace(path, temporaryPath);
+	}
+
+	// same text for the same value, whatever the property type
+	protected static String propertyText(Property property) {
+		if (property.isList()) {
+			return String.join("\n", property.getStringList());
+		}
+
+		return property.getString();
 	}
 
 	public <T> T elementGet(ConfigurationElement<T> element) {
@@ -111,6 +196,46 @@ public abstract class ConfigurationBase {
 
 	public <T> void elementSet(ConfigurationElement<T> element, T value) {
 		element.valueSet(value, forgeConfiguration);
+
+		snapshotDerive();
+	}
+
+	public ConfigurationSnapshot snapshot() {
+		return snapshot;
+	}
+
+	// publish current values then tell anyone listening what changed
+	protected void snapshotDerive() {
+		ConfigurationSnapshot snapshotOld = snapshot;
+
+		snapshot = ConfigurationSnapshot.of(elementList, forgeConfiguration);
+
+		snapshotDerivePost();
+
+		if (snapshotOld != null) {
+			changePost(snapshotOld, snapshot);
+		}
+	}
+
+	// publish anything derived from the new snapshot, runs before the change
+	// event so listeners see it
+	protected void snapshotDerivePost() {
+	}
+
+	protected void changePost(ConfigurationSnapshot snapshotOld, ConfigurationSnapshot snapshotNew) {
+		ArrayList<ConfigurationElementChange<?>> changeList = new ArrayList<>();
+
+		for (ConfigurationElement<?> element : elementList) {
+			ConfigurationElementChange<?> change = ConfigurationElementChange.of(element, snapshotOld, snapshotNew);
+
+			if (change != null) {
+				changeList.add(change);
+			}
+		}
+
+		if (!changeList.isEmpty()) {
+			MinecraftForge.EVENT_BUS.post(new ConfigurationEvent.Change(this, snapshotOld, snapshotNew, changeList));
+		}
 	}
 
 	protected void sortOrderSet() {
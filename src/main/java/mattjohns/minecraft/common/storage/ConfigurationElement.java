@@ -43,6 +43,10 @@ public abstract class ConfigurationElement<T> {
 
 	protected abstract void valueSet(Property property, T value);
 
+	// Converts text written by a user (e.g. an override) to a value. Throws if
+	// it isn't valid for this element.
+	public abstract T valueParse(String text) throws ConfigurationException;
+
 	public T valueGet(Configuration forgeConfiguration) {
 		return valueGet(propertyGetOrCreate(forgeConfiguration));
 	}
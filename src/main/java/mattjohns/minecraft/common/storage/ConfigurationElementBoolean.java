@@ -17,6 +17,23 @@ public class ConfigurationElementBoolean extends ConfigurationElement<Boolean> {
 		return forgeConfiguration.get(category, key, defaultValue, descriptionFull());
 	}
 
+	@Override
+	public Boolean valueParse(String text) throws ConfigurationException {
+		String textTrim = text.trim();
+
+		// stricter than Boolean.parseBoolean() which treats anything unknown as
+		// false
+		if (textTrim.equalsIgnoreCase("true")) {
+			return true;
+		}
+
+		if (textTrim.equalsIgnoreCase("false")) {
+			return false;
+		}
+
+		throw new ConfigurationException(key + " must be true or false.");
+	}
+
 	@Override
 	protected Boolean valueGet(Property property) {
 		return property.getBoolean();
@@ -0,0 +1,36 @@
+package mattjohns.minecraft.common.storage;
+
+import java.util.Objects;
+
+import mattjohns.common.immutable.Immutable;
+
+// an element's value before and after a reload or set
+public class ConfigurationElementChange<T> extends Immutable<ConfigurationElementChange<T>> {
+	public final ConfigurationElement<T> element;
+	public final T valueOld;
+	public final T valueNew;
+
+	protected ConfigurationElementChange(ConfigurationElement<T> element, T valueOld, T valueNew) {
+		this.element = element;
+		this.valueOld = valueOld;
+		this.valueNew = valueNew;
+	}
+
+	public static <T> ConfigurationElementChange<T> of(ConfigurationElement<T> element, T valueOld, T valueNew) {
+		return new ConfigurationElementChange<>(element, valueOld, valueNew);
+	}
+
+	// null if the element has the same value in both
+	public static <T> ConfigurationElementChange<T> of(ConfigurationElement<T> element,
+			ConfigurationSnapshot snapshotOld, ConfigurationSnapshot snapshotNew) {
+		T valueOld = snapshotOld.elementGet(element);
+		T valueNew = snapshotNew.elementGet(element);
+
+		// deep for string lists
+		if (Objects.deepEquals(valueOld, valueNew)) {
+			return null;
+		}
+
+		return of(element, valueOld, valueNew);
+	}
+}
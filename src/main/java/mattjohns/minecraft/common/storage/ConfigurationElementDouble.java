@@ -23,6 +23,11 @@ public class ConfigurationElementDouble extends ConfigurationElementNumber<Doubl
 		return forgeConfiguration.get(category, key, defaultValue, descriptionFull());
 	}
 
+	@Override
+	protected Double valueParseUnchecked(String text) throws NumberFormatException {
+		return Double.parseDouble(text);
+	}
+
 	@Override
 	protected Double valueGet(Property property) {
 		return property.getDouble();
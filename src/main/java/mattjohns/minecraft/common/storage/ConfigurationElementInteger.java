@@ -23,6 +23,11 @@ public class ConfigurationElementInteger extends ConfigurationElementNumber<Inte
 		return forgeConfiguration.get(category, key, defaultValue, descriptionFull());
 	}
 
+	@Override
+	protected Integer valueParseUnchecked(String text) throws NumberFormatException {
+		return Integer.parseInt(text);
+	}
+
 	@Override
 	protected Integer valueGet(Property property) {
 		return property.getInt();
@@ -1,7 +1,19 @@
 package mattjohns.minecraft.common.storage;
 
 import java.util.ArrayList;
+import java.util.Optional;
 
 public class ConfigurationElementList extends ArrayList<ConfigurationElement<?>> {
 	private static final long serialVersionUID = 1L;
+
+	// key match is case sensitive, same as the forge configuration
+	public Optional<ConfigurationElement<?>> keyFind(String key) {
+		for (ConfigurationElement<?> element : this) {
+			if (element.key().equals(key)) {
+				return Optional.of(element);
+			}
+		}
+
+		return Optional.empty();
+	}
 }
@@ -29,6 +29,25 @@ public abstract class ConfigurationElementNumber<T extends Comparable<T>> extend
 	}
 	
 	protected abstract void valueSetDirect(Property property, T valueUnchecked);
+
+	@Override
+	public T valueParse(String text) throws ConfigurationException {
+		T value;
+		try {
+			value = valueParseUnchecked(text.trim());
+		} catch (NumberFormatException exception) {
+			throw new ConfigurationException("\"" + text + "\" is not a number for " + key + ".");
+		}
+
+		if (value.compareTo(minimum) < 0 || value.compareTo(maximum) > 0) {
+			throw new ConfigurationException(
+					key + " must be between " + minimum.toString() + " and " + maximum.toString() + ".");
+		}
+
+		return value;
+	}
+
+	protected abstract T valueParseUnchecked(String text) throws NumberFormatException;
 	
 	public T minimumGet() {
 		return minimum;
@@ -17,6 +17,11 @@ public class ConfigurationElementString extends ConfigurationElement<String> {
 		return forgeConfiguration.get(category, key, defaultValue, descriptionFull());
 	}
 
+	@Override
+	public String valueParse(String text) throws ConfigurationException {
+		return text;
+	}
+
 	@Override
 	protected String valueGet(Property property) {
 		return property.getString();
@@ -0,0 +1,47 @@
+package mattjohns.minecraft.common.storage;
+
+import java.util.Arrays;
+
+import net.minecraftforge.common.config.Configuration;
+import net.minecraftforge.common.config.Property;
+
+public class ConfigurationElementStringList extends ConfigurationElement<String[]> {
+	protected ConfigurationElementStringList(String category, String key, String[] defaultValue, String description) {
+		super(category, key, defaultValue, description);
+	}
+
+	public static ConfigurationElementStringList of(String category, String key, String[] defaultValue,
+			String description) {
+		return new ConfigurationElementStringList(category, key, defaultValue, description);
+	}
+
+	@Override
+	protected Property propertyGetOrCreate(Configuration forgeConfiguration) {
+		return forgeConfiguration.get(category, key, defaultValue, descriptionFull());
+	}
+
+	@Override
+	protected String[] valueGet(Property property) {
+		return property.getStringList();
+	}
+
+	@Override
+	protected void valueSet(Property property, String[] value) {
+		property.setValues(value);
+	}
+
+	// one item per line
+	@Override
+	public String[] valueParse(String text) throws ConfigurationException {
+		return text.split("\n");
+	}
+
+	@Override
+	protected String valueSerialize(String[] item) {
+		if (item.length == 0) {
+			return "empty";
+		}
+
+		return Arrays.toString(item);
+	}
+}
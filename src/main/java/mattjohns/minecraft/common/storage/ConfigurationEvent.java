@@ -0,0 +1,56 @@
+package mattjohns.minecraft.common.storage;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import net.minecraftforge.fml.common.eventhandler.Event;
+
+/**
+ * All events that get fired by ConfigurationBase class.
+ */
+public class ConfigurationEvent extends Event {
+	public ConfigurationBase configuration;
+
+	public ConfigurationEvent(ConfigurationBase configuration) {
+		this.configuration = configuration;
+	}
+
+	/**
+	 * One or more element values changed, either from a reload or a set.
+	 * Fired after the new snapshot and anything derived from it are
+	 * published. Not fired for the first load.
+	 */
+	public static class Change extends ConfigurationEvent {
+		public ConfigurationSnapshot snapshotOld;
+		public ConfigurationSnapshot snapshotNew;
+
+		// only the elements that changed
+		public List<ConfigurationElementChange<?>> changeList;
+
+		public Change(ConfigurationBase configuration, ConfigurationSnapshot snapshotOld,
+				ConfigurationSnapshot snapshotNew, List<ConfigurationElementChange<?>> changeList) {
+			super(configuration);
+
+			this.snapshotOld = snapshotOld;
+			this.snapshotNew = snapshotNew;
+			this.changeList = Collections.unmodifiableList(changeList);
+		}
+
+		public boolean isChanged(ConfigurationElement<?> element) {
+			return changeGet(element).isPresent();
+		}
+
+		public <T> Optional<ConfigurationElementChange<T>> changeGet(ConfigurationElement<T> element) {
+			for (ConfigurationElementChange<?> change : changeList) {
+				if (change.element == element) {
+					@SuppressWarnings("unchecked")
+					final ConfigurationElementChange<T> result = (ConfigurationElementChange<T>)change;
+					return Optional.of(result);
+				}
+			}
+
+			return Optional.empty();
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package mattjohns.minecraft.common.storage;
+
+import java.util.Optional;
+
+import mattjohns.common.immutable.Immutable;
+
+/**
+ * A single value that replaces an element's normal value in some situation,
+ * written by the user as
+ * 
+ * <pre>
+ * scope target Key=value
+ * </pre>
+ * 
+ * For example "dimension -1 ReedEnable=false". What the scope and target mean
+ * is up to the caller.
+ */
+public class ConfigurationOverride extends Immutable<ConfigurationOverride> {
+	public final String scope;
+	public final String target;
+	public final ConfigurationElement<?> element;
+	public final Object value;
+
+	protected ConfigurationOverride(String scope, String target, ConfigurationElement<?> element, Object value) {
+		this.scope = scope;
+		this.target = target;
+		this.element = element;
+		this.value = value;
+	}
+
+	public static ConfigurationOverride parse(String text, ConfigurationElementList elementList)
+			throws ConfigurationException {
+		String[] partList = text.trim().split("\\s+", 3);
+		if (partList.length != 3) {
+			throw new ConfigurationException("Override \"" + text + "\" should be \"scope target Key=value\".");
+		}
+
+		String assignment = partList[2];
+
+		int equalIndex = assignment.indexOf('=');
+		if (equalIndex < 1) {
+			throw new ConfigurationException("Override \"" + text + "\" is missing \"Key=value\".");
+		}
+
+		String key = assignment.substring(0, equalIndex).trim();
+		String valueText = assignment.substring(equalIndex + 1).trim();
+
+		Optional<ConfigurationElement<?>> element = elementList.keyFind(key);
+		if (!element.isPresent()) {
+			throw new ConfigurationException("Override \"" + text + "\" has unknown key \"" + key + "\".");
+		}
+
+		Object value = element.get().valueParse(valueText);
+
+		return new ConfigurationOverride(partList[0].toLowerCase(), partList[1], element.get(), value);
+	}
+}
@@ -0,0 +1,54 @@
+package mattjohns.minecraft.common.storage;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.minecraftforge.common.config.Configuration;
+
+import mattjohns.common.immutable.Immutable;
+
+/**
+ * Copy of every element value at a point in time.
+ *
+ * The forge configuration is changed in place during a reload, so code that
+ * might run on another thread should read from a snapshot instead. A reload
+ * creates a new snapshot rather than changing an existing one.
+ */
+public class ConfigurationSnapshot extends Immutable<ConfigurationSnapshot> {
+	protected final Map<ConfigurationElement<?>, Object> valueMap;
+
+	protected ConfigurationSnapshot(Map<ConfigurationElement<?>, Object> valueMap) {
+		this.valueMap = valueMap;
+	}
+
+	public static ConfigurationSnapshot of(ConfigurationElementList elementList, Configuration forgeConfiguration) {
+		HashMap<ConfigurationElement<?>, Object> valueMap = new HashMap<>();
+
+		for (ConfigurationElement<?> element : elementList) {
+			valueMap.put(element, element.valueGet(forgeConfiguration));
+		}
+
+		return new ConfigurationSnapshot(Collections.unmodifiableMap(valueMap));
+	}
+
+	// copy with some values replaced
+	public ConfigurationSnapshot with(Map<ConfigurationElement<?>, Object> overrideMap) {
+		if (overrideMap.isEmpty()) {
+			return this;
+		}
+
+		HashMap<ConfigurationElement<?>, Object> valueMapNew = new HashMap<>(valueMap);
+		valueMapNew.putAll(overrideMap);
+
+		return new ConfigurationSnapshot(Collections.unmodifiableMap(valueMapNew));
+	}
+
+	public <T> T elementGet(ConfigurationElement<T> element) {
+		assert valueMap.containsKey(element) : "Element \"" + element.key() + "\" is not in the element list.";
+
+		@SuppressWarnings("unchecked")
+		final T value = (T)valueMap.get(element);
+		return value;
+	}
+}
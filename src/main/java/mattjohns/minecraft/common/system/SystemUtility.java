@@ -8,11 +8,13 @@ import net.minecraft.client.gui.GuiMultiplayer;
 import net.minecraft.client.multiplayer.WorldClient;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.realms.RealmsBridge;
+import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.RayTraceResult;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
+import net.minecraft.world.biome.Biome;
 import mattjohns.common.math.General;
 import net.minecraft.block.Block;
 
@@ -62,6 +64,11 @@ public class SystemUtility {
 		return blockGet(name) != null;
 	}
 
+	// null if not found, name is the registry name such as "minecraft:desert"
+	public static Biome biomeGet(String name) {
+		return Biome.REGISTRY.getObject(new ResourceLocation(name));
+	}
+
 	// offsets of all blocks that have their center within the given radius
 	public static ArrayList<BlockPos> radiusGetBlockOffsetList(double radius) {
 		ArrayList<BlockPos> result = new ArrayList<>();
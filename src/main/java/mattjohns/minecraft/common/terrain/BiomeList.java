@@ -1,6 +1,7 @@
 package mattjohns.minecraft.common.terrain;
 
 import java.util.HashMap;
+import java.util.Locale;
 
 import com.google.common.collect.ImmutableList;
 
@@ -11,33 +12,58 @@ import net.minecraftforge.common.BiomeManager.BiomeEntry;
 import net.minecraftforge.common.BiomeManager.BiomeType;
 
 public class BiomeList {
-	private HashMap<Integer, Biome> map = new HashMap<>();
+	// biome ids are a byte in chunk data
+	public static final int IdListSize = 256;
+
+	// indexed by biome id
+	private Biome[] idList = new Biome[IdListSize];
+
+	// lower case name
+	private HashMap<String, Biome> nameMap = new HashMap<>();
 
 	public void add(int id, Biome item) {
-		map.putIfAbsent(id, item);
+		if (!isIdValid(id) || idList[id] != null) {
+			return;
+		}
+
+		idList[id] = item;
+		nameMap.putIfAbsent(nameKey(item.getBiomeName()), item);
 	}
 
 	public Biome get(int id) {
-		return map.get(id);
+		if (!isIdValid(id)) {
+			return null;
+		}
+
+		return idList[id];
 	}
 
+	// case insensitive
 	public Biome get(String name) {
-		for (Biome biome : map.values()) {
-			if (biome.getBiomeName().compareToIgnoreCase(name) == 0)
-				return biome;
-		}
-
-		return null;
+		return nameMap.get(nameKey(name));
 	}
 
 	public void derive() {
-		map.clear();
+		clear();
 
 		for (BiomeType biomeType : BiomeType.values()) {
 			derive(biomeType);
 		}
 	}
 
+	public void clear() {
+		idList = new Biome[IdListSize];
+		nameMap.clear();
+	}
+
+	public static boolean isIdValid(int id) {
+		return id >= 0 && id < IdListSize;
+	}
+
+	private static String nameKey(String name) {
+		return name.toLowerCase(Locale.ROOT);
+	}
+
 	private void derive(BiomeType biomeType) {
 		ImmutableList<BiomeEntry> entryList = BiomeManager.getBiomes(biomeType);
 
@@ -5,15 +5,52 @@ import java.util.ArrayList;
 public class CustomBiomeList extends ArrayList<CustomBiome> {
 	private static final long serialVersionUID = 1L;
 
-	/// should be sorted by id at very least
+	// indexed by base biome id, rebuilt by derive()
+	private transient CustomBiome[] baseIdList;
+
+	// modCount when baseIdList was built, add/remove/clear/sort all change it
+	private transient int baseIdListModCount;
+
+	// set() doesn't change modCount
+	private transient boolean isBaseIdListDirty = true;
+
+	/**
+	 * Builds the id lookup table. getByBaseId() calls this itself whenever the
+	 * list has changed.
+	 */
+	public void derive() {
+		CustomBiome[] table = new CustomBiome[BiomeList.IdListSize];
 
-	public CustomBiome getByBaseId(int id) {
 		for (CustomBiome item : this) {
-			if (item.baseBiomeId == id) {
-				return item;
+			int id = item.baseBiomeId;
+
+			// first one wins, same as the list order
+			if (BiomeList.isIdValid(id) && table[id] == null) {
+				table[id] = item;
 			}
 		}
 
-		return null;
+		baseIdList = table;
+		baseIdListModCount = modCount;
+		isBaseIdListDirty = false;
+	}
+
+	public CustomBiome getByBaseId(int id) {
+		if (!BiomeList.isIdValid(id)) {
+			return null;
+		}
+
+		if (isBaseIdListDirty || baseIdListModCount != modCount) {
+			derive();
+		}
+
+		return baseIdList[id];
+	}
+
+	@Override
+	public CustomBiome set(int index, CustomBiome item) {
+		isBaseIdListDirty = true;
+
+		return super.set(index, item);
 	}
 }
@@ -1,68 +1,189 @@
 package mattjohns.minecraft.common.terrain;
 
+import java.util.Arrays;
+
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
+import net.minecraft.util.math.ChunkPos;
 
-import mattjohns.common.math.Vector3D;
+import mattjohns.common.general.CacheLru;
+import mattjohns.common.math.fractal.FractalTransform;
+import mattjohns.common.math.fractal.FractalVolumeCache;
 import mattjohns.common.math.fractal.Mandelbulb;
+import mattjohns.common.math.fractal.NoiseSimplex;
 import mattjohns.common.math.fractal.NoiseSimplex2D;
 
 public class GroundFractal {
-	NoiseSimplex2D noiseField1 = new NoiseSimplex2D(120.1, 24);
-	NoiseSimplex2D noiseField2 = new NoiseSimplex2D(211.21, 14);
-	NoiseSimplex2D noiseField3 = new NoiseSimplex2D(511.21, 64);
+	NoiseSimplex2D noiseField1;
+	NoiseSimplex2D noiseField2;
+	NoiseSimplex2D noiseField3;
 
-	public IBlockState getNoise(int x, int y, int z) {
-		double groundY1 = noiseField1.rawGet(x, z);
-		groundY1 = Math.abs(groundY1);
+	// all fields use the same noise so they can be worked out in one pass
+	protected NoiseSimplex noise;
+	protected double[] noiseFrequencyList;
+
+	// chunks whose ground height is kept
+	protected static final int HeightCacheSize = 16;
+
+	// per thread because chunks can be generated on worker threads
+	protected final ThreadLocal<HeightCache> heightCache = ThreadLocal.withInitial(HeightCache::new);
+
+	// highest block the fractal can fill
+	protected static final int FractalHeightMaximum = 64;
 
-		groundY1 *= 2.0;
-		groundY1 = 1.0 - groundY1;
+	// stretched flat, the fractal is much wider than it is tall
+	protected final Mandelbulb fractal = new Mandelbulb(0.1, FractalTransform.of(0.001, 0.01, 0.001));
 
-		groundY1 *= 24;
+	// null means every section is worked out again
+	protected FractalVolumeCache fractalCache;
 
-		double groundY2 = noiseField2.rawGet(x, z);
-		groundY2 *= 10;
+	// same noise for every world
+	public GroundFractal() {
+		this(NoiseSimplex.of());
+	}
 
-		double groundY3 = noiseField3.rawGet(x, z);
-		groundY3 *= 64;
+	public GroundFractal(long seed) {
+		this(NoiseSimplex.of(seed));
+	}
 
-		double groundYD = groundY1 + groundY2 + groundY3;
+	protected GroundFractal(NoiseSimplex noise) {
+		this.noise = noise;
 
-		int groundY = (int)groundYD;
+		noiseField1 = new NoiseSimplex2D(120.1, 24, noise);
+		noiseField2 = new NoiseSimplex2D(211.21, 14, noise);
+		noiseField3 = new NoiseSimplex2D(511.21, 64, noise);
 
-		if (y < groundY)
+		noiseFrequencyList = new double[] { noiseField1.frequency(), noiseField2.frequency(),
+				noiseField3.frequency() };
+	}
+
+	// can be shared between generators, sections are keyed by the fractal's
+	// parameters
+	public void fractalCacheSet(FractalVolumeCache fractalCache) {
+		this.fractalCache = fractalCache;
+	}
+
+	public IBlockState getNoise(int x, int y, int z) {
+		if (y < groundHeightGet(x, z))
 			return Blocks.STONE.getDefaultState();
 
 		return null;
 	}
 
-	public IBlockState getFractal(int x, int y, int z) {
-		if (y > 64)
-			return null;
+	// ground height of a single column, worked out a chunk at a time and cached
+	public int groundHeightGet(int x, int z) {
+		int chunkX = x >> 4;
+		int chunkZ = z >> 4;
+
+		HeightCache cache = heightCache.get();
+		long key = ChunkPos.asLong(chunkX, chunkZ);
+
+		int[] heightList = cache.chunkList.get(key);
+		if (heightList == null) {
+			heightList = cache.heightListRecycle;
+			if (heightList == null) {
+				heightList = new int[256];
+			}
+
+			groundHeightCopy(chunkX, chunkZ, heightList, cache);
+
+			cache.heightListRecycle = cache.chunkList.put(key, heightList);
+		}
+
+		return heightList[((x & 15) << 4) | (z & 15)];
+	}
+
+	/**
+	 * Works out the ground height of every column in a chunk.
+	 *
+	 * @param destination
+	 * 256 heights indexed ChunkSlice.index(x, z).
+	 */
+	public void groundHeightCopy(int chunkX, int chunkZ, int[] destination) {
+		groundHeightCopy(chunkX, chunkZ, destination, heightCache.get());
+	}
+
+	protected void groundHeightCopy(int chunkX, int chunkZ, int[] destination, HeightCache cache) {
+		int xStart = chunkX << 4;
+		int zStart = chunkZ << 4;
+
+		noise.get(cache.noiseListList, (double)xStart, (double)zStart, 16, 16, noiseFrequencyList);
 
-		// transform
-		double scaleHorizontal = 0.001;
-		double scaleVertical = 0.01;
-		Vector3D scale = new Vector3D(scaleHorizontal, scaleVertical, scaleHorizontal);
+		for (int i = 0; i < 256; i++) {
+			double groundY1 = cache.noiseList1[i];
+			groundY1 = Math.abs(groundY1);
 
-		Vector3D offset = new Vector3D(0.0, 0, 0.0);
+			groundY1 *= 2.0;
+			groundY1 = 1.0 - groundY1;
 
-		double dx = (double)x;
-		double dy = (double)y;
-		double dz = (double)z;
+			groundY1 *= 24;
 
-		dx += offset.x;
-		dy += offset.y;
-		dz += offset.z;
+			double groundY2 = cache.noiseList2[i];
+			groundY2 *= 10;
 
-		dx *= scale.x;
-		dy *= scale.y;
-		dz *= scale.z;
+			double groundY3 = cache.noiseList3[i];
+			groundY3 *= 64;
 
-		if (Mandelbulb.get(dx, dy, dz, 0.1))
+			double groundYD = groundY1 + groundY2 + groundY3;
+
+			destination[i] = (int)groundYD;
+		}
+	}
+
+	public IBlockState getFractal(int x, int y, int z) {
+		if (y > FractalHeightMaximum)
+			return null;
+
+		boolean isInside = fractalCache != null ? fractalCache.get(fractal, x, y, z) : fractal.get(x, y, z);
+
+		if (isInside)
 			return Blocks.GRASS.getDefaultState();
 
 		return null;
 	}
+
+	/**
+	 * Same shape as getFractal() for a whole chunk section.
+	 *
+	 * @param destination
+	 * Mandelbulb.SectionMaskSize longs, bit (y << 8) | (z << 4) | x is set for
+	 * grass.
+	 */
+	public void fractalSectionCopy(int chunkX, int sectionY, int chunkZ, long[] destination) {
+		int yStart = sectionY << 4;
+
+		if (yStart > FractalHeightMaximum) {
+			Arrays.fill(destination, 0, Mandelbulb.SectionMaskSize, 0L);
+			return;
+		}
+
+		if (fractalCache != null) {
+			// cached sections are shared, copy rather than change them
+			System.arraycopy(fractalCache.sectionGet(fractal, chunkX, sectionY, chunkZ), 0, destination, 0,
+					Mandelbulb.SectionMaskSize);
+		} else {
+			fractal.sectionCopy(destination, chunkX, sectionY, chunkZ);
+		}
+
+		// nothing above the maximum
+		for (int y = Math.max(FractalHeightMaximum + 1 - yStart, 0); y < 16; y++) {
+			for (int word = 0; word < 4; word++) {
+				destination[(y << 2) + word] = 0L;
+			}
+		}
+	}
+
+	protected static class HeightCache {
+		// chunk position to 256 column heights
+		public final CacheLru<int[]> chunkList = CacheLru.of(HeightCacheSize);
+
+		// pushed out of the cache, filled again for the next chunk
+		public int[] heightListRecycle;
+
+		public final double[] noiseList1 = new double[256];
+		public final double[] noiseList2 = new double[256];
+		public final double[] noiseList3 = new double[256];
+
+		public final double[][] noiseListList = { noiseList1, noiseList2, noiseList3 };
+	}
 }
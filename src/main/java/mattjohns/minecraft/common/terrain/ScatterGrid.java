@@ -1,41 +1,43 @@
 package mattjohns.minecraft.common.terrain;
 
-import java.util.Random;
-
+import mattjohns.common.general.CacheLruConcurrent;
 import mattjohns.common.math.Vector2I;
 import mattjohns.common.math.Vector3I;
 import mattjohns.minecraft.common.block.BlockPos2d;
 
 public class ScatterGrid {
+	// cells whose random values are kept, shared by all threads
+	protected static final int CellCacheSize = 256;
+
 	private int gridSize;
 
-	Random random = new Random();
+	private long seed;
+
+	protected final CacheLruConcurrent<ScatterGridCell> cellCache = CacheLruConcurrent.of(CellCacheSize);
 
 	public ScatterGrid(int gridSize) {
+		this(gridSize, 0L);
+	}
+
+	public ScatterGrid(int gridSize, long seed) {
 		this.gridSize = gridSize;
+		this.seed = seed;
 	}
 
 	public boolean checkPosition(int x, int z) {
-		int gridX = x / gridSize;
-		int gridZ = z / gridSize;
+		int gridX = Math.floorDiv(x, gridSize);
+		int gridZ = Math.floorDiv(z, gridSize);
 
-		int offsetX = x % gridSize;
-		if (offsetX < 0) {
-			offsetX = gridSize + offsetX;
-		}
-		int offsetZ = z % gridSize;
-		if (offsetZ < 0) {
-			offsetZ = gridSize + offsetZ;
-		}
+		int offsetX = Math.floorMod(x, gridSize);
+		int offsetZ = Math.floorMod(z, gridSize);
 
-		long seed = seedGet(gridX, gridZ);
-		random.setSeed(seed);
+		ScatterGridCell cell = cellGet(gridX, gridZ);
 
-		int randomPositionX = random.nextInt(gridSize);
-		int randomPositionY = random.nextInt(gridSize);
+		int randomPositionX = cell.positionX;
+		int randomPositionY = cell.positionZ;
 
-		int randomHalfSizeX = random.nextInt(3);
-		int randomHalfSizeY = random.nextInt(3);
+		int randomHalfSizeX = cell.halfSizeX;
+		int randomHalfSizeY = cell.halfSizeZ;
 
 		/// won't extend past grid, so bounce it back off the wall if go too far
 
@@ -125,9 +127,6 @@ public class ScatterGrid {
 	}
 
 	protected BlockPos2d centerGetOffsetByGrid(int gridX, int gridZ) {
-		long seed = seedGet(gridX, gridZ);
-		random.setSeed(seed);
-
 		int centerOffsetToGridX = 50;
 		int centerOffsetToGridZ = 50;
 
@@ -135,9 +134,6 @@ public class ScatterGrid {
 	}
 
 	protected Vector3I sizeGetHalfByGrid(int gridX, int gridZ) {
-		long seed = seedGet(gridX, gridZ);
-		random.setSeed(seed);
-
 		int randomHalfSizeX = 10;
 		int randomHalfSizeY = 10;
 		int randomHalfSizeZ = 10;
@@ -145,18 +141,20 @@ public class ScatterGrid {
 		return new Vector3I(randomHalfSizeX, randomHalfSizeY, randomHalfSizeZ);
 	}
 
-	private int seed2(int _s) {
-		long s = 192837463l ^ Math.abs(_s);
-		long a = 1664525l;
-		long c = 1013904223l;
-		long m = 4294967296l;
-		return (int)((s * a + c) % m);
+	// random values for a cell, the same on every thread
+	protected ScatterGridCell cellGet(int gridX, int gridZ) {
+		long key = cellKey(gridX, gridZ);
+
+		ScatterGridCell result = cellCache.get(key);
+		if (result == null) {
+			result = ScatterGridCell.of(seed, gridX, gridZ, gridSize);
+			cellCache.put(key, result);
+		}
+
+		return result;
 	}
 
-	// https://stackoverflow.com/questions/10693111/how-to-generate-a-seed-from-an-xy-coordinate
-	protected int seedGet(int x, int y) {
-		int sx = seed2(x * 1947);
-		int sy = seed2(y * 2904);
-		return seed2(sx ^ sy);
+	protected static long cellKey(int gridX, int gridZ) {
+		return ((long)gridX << 32) | (gridZ & 0xffffffffL);
 	}
 }
@@ -0,0 +1,46 @@
+package mattjohns.minecraft.common.terrain;
+
+import mattjohns.common.immutable.Immutable;
+import mattjohns.common.math.HashSplitMix;
+
+/**
+ * Random values for a single scatter grid cell, all worked out from a hash of
+ * the seed and cell position so any thread gets the same values.
+ */
+public class ScatterGridCell extends Immutable<ScatterGridCell> {
+	public final int gridX;
+	public final int gridZ;
+
+	// position of the checkPosition() block within the cell
+	public final int positionX;
+	public final int positionZ;
+
+	// 0 to 2
+	public final int halfSizeX;
+	public final int halfSizeZ;
+
+	// 0 to 1, offset of the tree mandelbulb
+	public final double treeOffsetX;
+	public final double treeOffsetZ;
+
+	protected ScatterGridCell(int gridX, int gridZ, int positionX, int positionZ, int halfSizeX, int halfSizeZ,
+			double treeOffsetX, double treeOffsetZ) {
+		this.gridX = gridX;
+		this.gridZ = gridZ;
+		this.positionX = positionX;
+		this.positionZ = positionZ;
+		this.halfSizeX = halfSizeX;
+		this.halfSizeZ = halfSizeZ;
+		this.treeOffsetX = treeOffsetX;
+		this.treeOffsetZ = treeOffsetZ;
+	}
+
+	public static ScatterGridCell of(long seed, int gridX, int gridZ, int gridSize) {
+		long hash = HashSplitMix.of(seed, gridX, gridZ);
+
+		return new ScatterGridCell(gridX, gridZ, HashSplitMix.intGet(HashSplitMix.next(hash, 0), gridSize),
+				HashSplitMix.intGet(HashSplitMix.next(hash, 1), gridSize),
+				HashSplitMix.intGet(HashSplitMix.next(hash, 2), 3), HashSplitMix.intGet(HashSplitMix.next(hash, 3), 3),
+				HashSplitMix.doubleGet(HashSplitMix.next(hash, 4)), HashSplitMix.doubleGet(HashSplitMix.next(hash, 5)));
+	}
+}
@@ -3,15 +3,25 @@ package mattjohns.minecraft.common.terrain;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
 
+import mattjohns.common.general.CacheLruConcurrent;
 import mattjohns.common.math.Vector2I;
-import mattjohns.common.math.Vector3D;
+import mattjohns.common.math.Vector3I;
 import mattjohns.common.math.fractal.Mandelbulb;
 
 public class ScatterTree extends ScatterGrid {
+	// trees whose shape is kept, shared by all threads
+	protected static final int ShapeCacheSize = 64;
+
+	protected final CacheLruConcurrent<ScatterTreeShape> shapeCache = CacheLruConcurrent.of(ShapeCacheSize);
+
 	public ScatterTree(int gridSize) {
 		super(gridSize);
 	}
 
+	public ScatterTree(int gridSize, long seed) {
+		super(gridSize, seed);
+	}
+
 	public ScatterTree2dData treeGet2dData(int positionX, int positionZ, int groundY, int centerGroundY) {
 		Scatter2dData base2dData = super.get2dData(positionX, positionZ, groundY, centerGroundY);
 		if (base2dData == null)
@@ -31,7 +41,7 @@ public class ScatterTree extends ScatterGrid {
 			int offsetX = data.offsetToCenterX;
 			int offsetZ = data.offsetToCenterZ;
 
-			if (isTrunkMandelBulb(offsetX, offsetY, offsetZ, data)) {
+			if (shapeGet(data).isSet(offsetX, offsetY, offsetZ)) {
 				return Blocks.LOG.getDefaultState();
 			}
 
@@ -43,20 +53,45 @@ public class ScatterTree extends ScatterGrid {
 		return null;
 	}
 
-	// offset is from center at mid-y
-	private boolean isTrunkMandelBulb(int offsetX, int offsetY, int offsetZ, Scatter2dData data) {
+	// trunk of the tree data is part of, worked out once per tree
+	protected ScatterTreeShape shapeGet(Scatter2dData data) {
+		Vector2I grid = positionToGrid(data.positionX, data.positionZ);
+		long key = cellKey(grid.x, grid.y);
+
+		ScatterTreeShape result = shapeCache.get(key);
+		if (result == null) {
+			result = shapeDerive(grid.x, grid.y);
+			shapeCache.put(key, result);
+		}
+
+		return result;
+	}
 
-		double radiusX = (double)data.halfSizeX / 2.0;
-		double radiusZ = (double)data.halfSizeZ / 2.0;
+	protected ScatterTreeShape shapeDerive(int gridX, int gridZ) {
+		Vector3I halfSize = sizeGetHalfByGrid(gridX, gridZ);
+		ScatterGridCell cell = cellGet(gridX, gridZ);
 
-		if (radiusX <= 0.5)
-			radiusX = 1.0;
-		if (radiusZ <= 0.5)
-			radiusZ = 1.0;
+		long[] bitList = new long[ScatterTreeShape.bitListSize(halfSize.x, halfSize.y, halfSize.z)];
 
-		double sizeX = (double)data.halfSizeX * 2.0 + 1.0;
-		double sizeY = (double)data.halfSizeY * 2.0 + 1.0;
-		double sizeZ = (double)data.halfSizeZ * 2.0 + 1.0;
+		for (int offsetX = -halfSize.x; offsetX <= halfSize.x; offsetX++) {
+			for (int offsetY = -halfSize.y; offsetY <= halfSize.y; offsetY++) {
+				for (int offsetZ = -halfSize.z; offsetZ <= halfSize.z; offsetZ++) {
+					if (isTrunkMandelBulb(offsetX, offsetY, offsetZ, halfSize, cell)) {
+						ScatterTreeShape.bitSet(bitList, halfSize.x, halfSize.y, halfSize.z, offsetX, offsetY,
+								offsetZ);
+					}
+				}
+			}
+		}
+
+		return ScatterTreeShape.of(halfSize.x, halfSize.y, halfSize.z, bitList);
+	}
+
+	// offset is from center at mid-y
+	private boolean isTrunkMandelBulb(int offsetX, int offsetY, int offsetZ, Vector3I halfSize, ScatterGridCell cell) {
+		double sizeX = (double)halfSize.x * 2.0 + 1.0;
+		double sizeY = (double)halfSize.y * 2.0 + 1.0;
+		double sizeZ = (double)halfSize.z * 2.0 + 1.0;
 
 		double x = (double)offsetX / sizeX;
 		double y = (double)offsetY / sizeY;
@@ -64,25 +99,21 @@ public class ScatterTree extends ScatterGrid {
 
 		// transform
 		double scaleAll = 0.01;
-		Vector3D scale = new Vector3D(1.0, 0.1, 1.0);
-		scale = scale.multiply(scaleAll);
-
-		/////
-		Vector2I grid = positionToGrid(data.positionX, data.positionZ);
-		long seed = seedGet(grid.x, grid.y);
-		random.setSeed(seed);
-		double ox = random.nextDouble();
-		double oz = random.nextDouble();
+		double scaleX = 1.0 * scaleAll;
+		double scaleY = 0.1 * scaleAll;
+		double scaleZ = 1.0 * scaleAll;
 
-		Vector3D offset = new Vector3D(ox * 0.1, 2.345, oz * 0.1);
+		double offsetCellX = cell.treeOffsetX * 0.1;
+		double offsetCellY = 2.345;
+		double offsetCellZ = cell.treeOffsetZ * 0.1;
 
-		x *= scale.x;
-		y *= scale.y;
-		z *= scale.z;
+		x *= scaleX;
+		y *= scaleY;
+		z *= scaleZ;
 
-		x += offset.x;
-		y += offset.y;
-		z += offset.z;
+		x += offsetCellX;
+		y += offsetCellY;
+		z += offsetCellZ;
 
 		return Mandelbulb.get(x, y, z, 1.0);
 	}
@@ -0,0 +1,69 @@
+package mattjohns.minecraft.common.terrain;
+
+import mattjohns.common.immutable.Immutable;
+
+/**
+ * Which blocks in a tree's bounding box are trunk, one bit per block.
+ *
+ * Offsets are from the tree center, -halfSize to halfSize on each axis.
+ */
+public class ScatterTreeShape extends Immutable<ScatterTreeShape> {
+	public final int halfSizeX;
+	public final int halfSizeY;
+	public final int halfSizeZ;
+
+	// bit ((x * sizeY) + y) * sizeZ + z, not changed after construction
+	protected final long[] bitList;
+
+	protected final int sizeY;
+	protected final int sizeZ;
+
+	protected ScatterTreeShape(int halfSizeX, int halfSizeY, int halfSizeZ, long[] bitList) {
+		this.halfSizeX = halfSizeX;
+		this.halfSizeY = halfSizeY;
+		this.halfSizeZ = halfSizeZ;
+		this.bitList = bitList;
+
+		sizeY = halfSizeY * 2 + 1;
+		sizeZ = halfSizeZ * 2 + 1;
+
+		assert bitList.length >= bitListSize(halfSizeX, halfSizeY, halfSizeZ);
+	}
+
+	// bitList is kept, not copied
+	public static ScatterTreeShape of(int halfSizeX, int halfSizeY, int halfSizeZ, long[] bitList) {
+		return new ScatterTreeShape(halfSizeX, halfSizeY, halfSizeZ, bitList);
+	}
+
+	public static int bitListSize(int halfSizeX, int halfSizeY, int halfSizeZ) {
+		int size = (halfSizeX * 2 + 1) * (halfSizeY * 2 + 1) * (halfSizeZ * 2 + 1);
+
+		return (size + 63) >>> 6;
+	}
+
+	// false outside the bounding box
+	public boolean isSet(int offsetX, int offsetY, int offsetZ) {
+		if (Math.abs(offsetX) > halfSizeX || Math.abs(offsetY) > halfSizeY || Math.abs(offsetZ) > halfSizeZ) {
+			return false;
+		}
+
+		int index = bitIndex(offsetX, offsetY, offsetZ);
+
+		return (bitList[index >>> 6] & (1L << index)) != 0;
+	}
+
+	protected int bitIndex(int offsetX, int offsetY, int offsetZ) {
+		return (((offsetX + halfSizeX) * sizeY) + offsetY + halfSizeY) * sizeZ + offsetZ + halfSizeZ;
+	}
+
+	// only for building, before the shape is handed out
+	protected static void bitSet(long[] bitList, int halfSizeX, int halfSizeY, int halfSizeZ, int offsetX,
+			int offsetY, int offsetZ) {
+		int sizeY = halfSizeY * 2 + 1;
+		int sizeZ = halfSizeZ * 2 + 1;
+
+		int index = (((offsetX + halfSizeX) * sizeY) + offsetY + halfSizeY) * sizeZ + offsetZ + halfSizeZ;
+
+		bitList[index >>> 6] |= 1L << index;
+	}
+}